@@ -0,0 +1,58 @@
+package benchmarks;
+
+import agent.State;
+import mummymaze.MummyMazeAgent;
+import mummymaze.MummyMazeLevel;
+import mummymaze.MummyMazeProblem;
+import mummymaze.MummyMazeState;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/*
+ * Levels used by the benchmarks. They are read from the directory given by the "levels" system
+ * property, "Niveis" by default, so the benchmarks are expected to run from the java-src directory.
+ */
+final class BenchmarkLevels {
+
+    private BenchmarkLevels() {
+    }
+
+    static MummyMazeLevel read(String fileName) {
+        try {
+            return MummyMazeAgent.readLevelFromFile(new File(System.getProperty("levels", "Niveis"), fileName));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Up to maxStates distinct states reachable from the start of the level, in breadth first order.
+     * The micro benchmarks cycle through them so that they don't measure a single, always cached, state.
+     */
+    static MummyMazeState[] sampleStates(MummyMazeLevel level, int maxStates) {
+        MummyMazeProblem problem = new MummyMazeProblem(new MummyMazeState(level));
+        State[] successors = new State[problem.getMaxSuccessors()];
+        List<MummyMazeState> states = new ArrayList<>();
+        HashSet<MummyMazeState> seen = new HashSet<>();
+        ArrayDeque<MummyMazeState> queue = new ArrayDeque<>();
+        queue.add(problem.getInitialState());
+        seen.add(problem.getInitialState());
+        while (!queue.isEmpty() && states.size() < maxStates) {
+            MummyMazeState state = queue.poll();
+            states.add(state);
+            int numSuccessors = problem.getSuccessors(state, successors);
+            for (int i = 0; i < numSuccessors; i++) {
+                MummyMazeState successor = (MummyMazeState) successors[i];
+                if (seen.add(successor))
+                    queue.add(successor);
+            }
+        }
+        return states.toArray(new MummyMazeState[0]);
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import agent.Heuristic;
+import mummymaze.MummyMazeAgent;
+import mummymaze.MummyMazeLevel;
+import mummymaze.MummyMazeProblem;
+import mummymaze.MummyMazeState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//Cost of computing each heuristic of the agent, on a sample of reachable states of the level
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+
+    @Param({"nivel1.txt", "nivel12.txt", "nivel22.txt"})
+    public String level;
+
+    //Index in MummyMazeAgent.getHeuristicsArray
+    @Param({"0", "1", "2"})
+    public int heuristic;
+
+    private Heuristic<MummyMazeProblem, MummyMazeState> h;
+    private MummyMazeState[] states;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MummyMazeLevel mummyMazeLevel = BenchmarkLevels.read(level);
+        states = BenchmarkLevels.sampleStates(mummyMazeLevel, 1024);
+        MummyMazeAgent agent = new MummyMazeAgent(new MummyMazeState(mummyMazeLevel));
+        h = agent.getHeuristicsArray()[heuristic];
+        h.setProblem(new MummyMazeProblem(states[0].clone()));
+    }
+
+    @Benchmark
+    public double compute() {
+        MummyMazeState state = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return h.compute(state);
+    }
+}
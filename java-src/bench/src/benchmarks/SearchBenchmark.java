@@ -0,0 +1,67 @@
+package benchmarks;
+
+import agent.Solution;
+import mummymaze.MummyMazeAgent;
+import mummymaze.MummyMazeBatchRunner;
+import mummymaze.MummyMazeProblem;
+import mummymaze.MummyMazeState;
+import org.openjdk.jmh.annotations.*;
+import searchmethods.InformedSearch;
+import searchmethods.SearchMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Macro benchmarks: a complete search of a level, from a fresh problem each time.
+ * The search methods that need a limit or beam size are left out, like in the level tests.
+ * The heuristic is only used by the informed search methods, use -p heuristic=0,1,2 to compare them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"nivel1.txt", "nivel2.txt", "nivel3.txt", "nivel4.txt", "nivel5.txt", "nivel6.txt", "nivel7.txt",
+            "nivel8.txt", "nivel9.txt", "nivel10.txt", "nivel11.txt", "nivel12.txt", "nivel13.txt", "nivel14.txt",
+            "nivel15.txt", "nivel16.txt", "nivel17.txt", "nivel18.txt", "nivel19.txt", "nivel20.txt",
+            "nivel21_v1.txt", "nivel21_v2.txt", "nivel22.txt"})
+    public String level;
+
+    @Param({"Breadth first search", "Uniform cost search", "Depth first search", "Iterative deepening search",
+            "Greedy best first search", "A* search", "IDA* search", "Depth first search (in place)",
+            "Iterative deepening search (in place)", "IDA* search (in place)", "HDA* search",
+            "Uniform cost search (parallel)", "Greedy best first search (parallel)", "A* search (parallel)",
+            "Breadth first search (parallel)", "Breadth first search (frontier)", "Breadth first search (external)",
+            "SMA* search", "ARA* search", "Partial expansion A* search", "Fringe search",
+            "Iterative deepening search (resumable)"})
+    public String searchMethod;
+
+    //Index in MummyMazeAgent.getHeuristicsArray
+    @Param({"0"})
+    public int heuristic;
+
+    private MummyMazeAgent agent;
+    private MummyMazeState initialState;
+
+    @Setup
+    public void setup() {
+        initialState = new MummyMazeState(BenchmarkLevels.read(level));
+        agent = new MummyMazeAgent(initialState.clone());
+        for (SearchMethod method : agent.getSearchMethodsArray())
+            if (method.toString().equals(searchMethod))
+                agent.setSearchMethod(method);
+        if (!agent.getSearchMethod().toString().equals(searchMethod) ||
+                MummyMazeBatchRunner.needsParameter(agent.getSearchMethod()))
+            throw new IllegalArgumentException("Search method not supported: " + searchMethod);
+        agent.setHeuristic(agent.getSearchMethod() instanceof InformedSearch ?
+                agent.getHeuristicsArray()[heuristic] : null);
+    }
+
+    @Benchmark
+    public Solution search() {
+        return agent.solveProblem(new MummyMazeProblem(initialState.clone()));
+    }
+}
@@ -0,0 +1,92 @@
+package benchmarks;
+
+import agent.Action;
+import mummymaze.MummyMazeLevel;
+import mummymaze.MummyMazeProblem;
+import mummymaze.MummyMazeState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Micro benchmarks of the operations done for every generated node. Each invocation works on the
+ * next state of a sample of reachable states of the level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateBenchmark {
+
+    @Param({"nivel1.txt", "nivel12.txt", "nivel22.txt"})
+    public String level;
+
+    private MummyMazeProblem problem;
+    private MummyMazeState[] states;
+    //Valid actions of each sampled state
+    private List<Action<MummyMazeState>>[] actions;
+    private agent.State[] successors;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        MummyMazeLevel mummyMazeLevel = BenchmarkLevels.read(level);
+        states = BenchmarkLevels.sampleStates(mummyMazeLevel, 1024);
+        problem = new MummyMazeProblem(states[0].clone());
+        actions = new List[states.length];
+        for (int i = 0; i < states.length; i++)
+            actions[i] = problem.getActions(states[i]);
+        successors = new agent.State[problem.getMaxSuccessors()];
+    }
+
+    private MummyMazeState nextState() {
+        MummyMazeState state = states[next];
+        next = next + 1 == states.length ? 0 : next + 1;
+        return state;
+    }
+
+    @Benchmark
+    public MummyMazeState cloneState() {
+        return nextState().clone();
+    }
+
+    @Benchmark
+    public int hashState() {
+        return nextState().hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsState() {
+        MummyMazeState state = nextState();
+        return state.equals(states[next]);
+    }
+
+    //Includes the clone, executeAction changes the state
+    @Benchmark
+    public void executeAction(Blackhole blackhole) {
+        List<Action<MummyMazeState>> stateActions = actions[next];
+        MummyMazeState state = nextState();
+        for (Action<MummyMazeState> action : stateActions) {
+            MummyMazeState successor = state.clone();
+            successor.executeAction(action);
+            blackhole.consume(successor);
+        }
+    }
+
+    @Benchmark
+    public List<Action<MummyMazeState>> getActions() {
+        return problem.getActions(nextState());
+    }
+
+    @Benchmark
+    public int getSuccessors(Blackhole blackhole) {
+        int numSuccessors = problem.getSuccessors(nextState(), successors);
+        blackhole.consume(successors);
+        return numSuccessors;
+    }
+}
@@ -17,7 +17,14 @@ public class Agent<E extends State> {
 
     public Agent(E environment) {
         this.environment = environment;
-        searchMethods = new ArrayList<>();
+        searchMethods = createSearchMethods();
+        searchMethod = searchMethods.get(0);
+        heuristics = new ArrayList<>();
+    }
+
+    //A new instance of each search method, also used to list them without an agent
+    public static ArrayList<SearchMethod> createSearchMethods() {
+        ArrayList<SearchMethod> searchMethods = new ArrayList<>();
         searchMethods.add(new BreadthFirstSearch());
         searchMethods.add(new UniformCostSearch());
         searchMethods.add(new DepthFirstSearch());
@@ -27,8 +34,24 @@ public class Agent<E extends State> {
         searchMethods.add(new AStarSearch());
         searchMethods.add(new BeamSearch());
         searchMethods.add(new IDAStarSearch());
-        searchMethod = searchMethods.get(0);
-        heuristics = new ArrayList<>();
+        searchMethods.add(new InPlaceDepthFirstSearch());
+        searchMethods.add(new InPlaceDepthLimitedSearch());
+        searchMethods.add(new InPlaceIterativeDeepeningSearch());
+        searchMethods.add(new InPlaceIDAStarSearch());
+        searchMethods.add(new ParallelBeamSearch());
+        searchMethods.add(new HDAStarSearch());
+        searchMethods.add(new ParallelUniformCostSearch());
+        searchMethods.add(new ParallelGreedyBestFirstSearch());
+        searchMethods.add(new ParallelAStarSearch());
+        searchMethods.add(new ParallelBreadthFirstSearch());
+        searchMethods.add(new FrontierBreadthFirstSearch());
+        searchMethods.add(new ExternalBreadthFirstSearch());
+        searchMethods.add(new SMAStarSearch());
+        searchMethods.add(new ARAStarSearch());
+        searchMethods.add(new PartialExpansionAStarSearch());
+        searchMethods.add(new FringeSearch());
+        searchMethods.add(new ResumableIterativeDeepeningSearch());
+        return searchMethods;
     }
 
     public Solution solveProblem(Problem problem) {
@@ -52,9 +75,9 @@ public class Agent<E extends State> {
         return solution != null;
     }
 
+    //The search returns soon after, and solveProblem measures the time then
     public void stop() {
         getSearchMethod().stop();
-        timeInMillis = System.currentTimeMillis() - timeInMillis;
     }
 
     public boolean hasBeenStopped() {
@@ -98,6 +121,8 @@ public class Agent<E extends State> {
     public String getSearchReport() {
         StringBuilder sb = new StringBuilder();
         sb.append(searchMethod + "\n");
+        if (hasBeenStopped())
+            sb.append("Search stopped\n");
         if (solution == null) {
             sb.append("No solution found\n");
         } else {
@@ -106,6 +131,19 @@ public class Agent<E extends State> {
         sb.append("Num of expanded nodes: ").append(searchMethod.getStatistics().numExpandedNodes).append("\n");
         sb.append("Max frontier size: ").append(searchMethod.getStatistics().maxFrontierSize).append("\n");
         sb.append("Num of generated states: ").append(searchMethod.getStatistics().numGeneratedSates).append("\n");
+        if (searchMethod.getStatistics().numLayers > 0) {
+            sb.append("Num of layers: ").append(searchMethod.getStatistics().numLayers).append("\n");
+            sb.append("Max layer width: ").append(searchMethod.getStatistics().maxLayerWidth).append("\n");
+            sb.append("Max successors of a layer: ").append(searchMethod.getStatistics().maxLayerCandidates).append("\n");
+            sb.append("Num of ties broken: ").append(searchMethod.getStatistics().numTiesBroken).append("\n");
+        }
+        if (searchMethod.getStatistics().numThreads > 0) {
+            sb.append("Num of threads: ").append(searchMethod.getStatistics().numThreads).append("\n");
+            sb.append("Num of re-expansions: ").append(searchMethod.getStatistics().numReExpansions).append("\n");
+            sb.append("Num of contended accesses: ").append(searchMethod.getStatistics().numContendedAccesses).append("\n");
+        }
+        if (searchMethod.getStatistics().numForgottenNodes > 0)
+            sb.append("Num of forgotten nodes: ").append(searchMethod.getStatistics().numForgottenNodes).append("\n");
         sb.append("Time to solve: ").append(timeInMillis).append(" milliseconds\n");
 
         return sb.toString();
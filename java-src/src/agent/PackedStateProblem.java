@@ -0,0 +1,13 @@
+package agent;
+
+/*
+ * Problems whose states can be identified by a single long implement this interface, so that
+ * searches can remember states in compact collections.
+ */
+public interface PackedStateProblem<S extends State> {
+
+    long packState(S state);
+
+    //State with the given packed value, as returned by packState
+    S unpackState(long packed);
+}
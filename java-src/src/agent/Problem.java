@@ -13,10 +13,38 @@ public abstract class Problem<S extends State> {
 
     public abstract List<Action<S>> getActions(S state);
 
+    //Puts the valid actions of the state in the given array, of size getMaxSuccessors, and returns how many there are
+    public int getActions(S state, Action[] actions) {
+        List<Action<S>> stateActions = getActions(state);
+        for (int i = 0; i < stateActions.size(); i++)
+            actions[i] = stateActions.get(i);
+        return stateActions.size();
+    }
+
     public abstract S getSuccessor(S state, Action action);
 
+    //Maximum number of successors of a state, the size of the array given to getSuccessors
+    public abstract int getMaxSuccessors();
+
+    /*
+     * Puts the successors of the state in the given array and returns how many there are.
+     * Searches give the same array for every expansion, so that no collection is created
+     * per expansion. Problems may override it to avoid materializing useless successors.
+     */
+    public int getSuccessors(S state, State[] successors) {
+        int numSuccessors = 0;
+        for (Action<S> action : getActions(state))
+            successors[numSuccessors++] = getSuccessor(state, action);
+        return numSuccessors;
+    }
+
     public abstract boolean isGoal(S state);
 
+    //True if every action has an integer cost, so that path costs are integers
+    public boolean hasIntegerCosts() {
+        return false;
+    }
+
     public double computePathCost(List<Action> path) {
         double cost = 0;
         for (Action a : path) {
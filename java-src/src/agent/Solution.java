@@ -19,6 +19,12 @@ public class Solution {
         }
     }
 
+    //Solution made of the given actions, from the initial state of the problem
+    public Solution(Problem problem, List<Action> actions) {
+        this.problem = problem;
+        this.actions = new LinkedList<>(actions);
+    }
+
     public double getCost() {
         return problem.computePathCost(actions);
     }
@@ -0,0 +1,26 @@
+package agent;
+
+/*
+ * Problems whose states can undo actions implement this interface, so that depth first searches can
+ * walk the search tree on a single state instead of cloning it for every successor.
+ */
+public interface UndoableProblem<S extends State> {
+
+    /*
+     * Executes the action on the state itself. Returns false, leaving the state unchanged, if the
+     * result is a successor that getSuccessors would leave out.
+     */
+    boolean doAction(S state, Action action);
+
+    //Undoes the last action done with doAction that wasn't undone yet
+    void undoAction(S state);
+
+    /*
+     * Does again, like doAction, an action that doAction already accepted on the same state, whose
+     * successor has the given packed value, as returned by PackedStateProblem.packState. Problems
+     * with packed states can set the state to it instead of executing the action again.
+     */
+    default void redoAction(S state, Action action, long packed) {
+        doAction(state, action);
+    }
+}
@@ -0,0 +1,243 @@
+package cli;
+
+import agent.Agent;
+import agent.Heuristic;
+import mummymaze.MummyMazeAgent;
+import mummymaze.MummyMazeBatchRunner;
+import mummymaze.MummyMazeLevel;
+import mummymaze.MummyMazeProblem;
+import mummymaze.MummyMazeState;
+import searchmethods.BeamSearch;
+import searchmethods.DepthLimitedSearch;
+import searchmethods.InformedSearch;
+import searchmethods.SearchMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/*
+ * Command line entry point, for machines without a display. Solves one level or every level of a
+ * directory with the chosen search methods and heuristics, and prints the same statistics as the
+ * search reports of the agent, as text, csv or json.
+ * Only the core packages are used, no AWT class is loaded.
+ */
+public class Main {
+
+    private static final String USAGE = """
+            Usage: cli.Main <level file or directory> [options]
+              -m, --method <index|name|all>     search method (default: all)
+              -h, --heuristic <index|name|all>  heuristic of the informed search methods (default: all)
+              -l, --limit <n>                   depth limit or beam size, needed by limited depth first search and beam search
+              -f, --format <text|csv|json>      output format (default: text)
+              -o, --output <file>               write the output to a file instead of the standard output
+              --list                            list the search methods and heuristics
+              --help                            show this message
+            Search methods and heuristics are chosen by their index in the list or by their name, ignoring case,
+            spaces and the "search" suffix (e.g. "a*", "breadth first"). Without a limit, "all" skips the search
+            methods that need one.""";
+
+    private enum Format {TEXT, CSV, JSON}
+
+    //Only used to list and choose them, each run gets new instances
+    private final SearchMethod[] allSearchMethods = Agent.createSearchMethods().toArray(new SearchMethod[0]);
+    private final Heuristic[] allHeuristics = MummyMazeAgent.createHeuristics().toArray(new Heuristic[0]);
+    private final List<File> levels = new ArrayList<>();
+    private String method = "all";
+    private String heuristic = "all";
+    private Integer limit;
+    private Format format = Format.TEXT;
+    private Path output;
+
+    public static void main(String[] args) {
+        Main main = new Main();
+        try {
+            if (!main.parseArguments(args))
+                return;
+            main.run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException | NoSuchElementException e) {
+            System.err.println("Could not read the level: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    //Returns false if there is nothing to solve
+    private boolean parseArguments(String[] args) {
+        String levelPath = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-m", "--method" -> method = getValue(args, ++i);
+                case "-h", "--heuristic" -> heuristic = getValue(args, ++i);
+                case "-l", "--limit" -> {
+                    try {
+                        limit = Integer.parseInt(getValue(args, ++i));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("The limit must be an integer.");
+                    }
+                }
+                case "-f", "--format" -> {
+                    try {
+                        format = Format.valueOf(getValue(args, ++i).toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown format: " + args[i]);
+                    }
+                }
+                case "-o", "--output" -> output = Path.of(getValue(args, ++i));
+                case "--help" -> {
+                    System.out.println(USAGE);
+                    return false;
+                }
+                case "--list" -> {
+                    printList();
+                    return false;
+                }
+                default -> {
+                    if (args[i].startsWith("-") || levelPath != null)
+                        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    levelPath = args[i];
+                }
+            }
+        }
+        if (levelPath == null)
+            throw new IllegalArgumentException("Missing the level file or directory.");
+
+        File file = new File(levelPath);
+        if (file.isDirectory()) {
+            File[] files = file.listFiles(File::isFile);
+            if (files == null || files.length == 0)
+                throw new IllegalArgumentException("No levels in " + levelPath);
+            Arrays.sort(files);
+            levels.addAll(Arrays.asList(files));
+        } else if (file.isFile()) {
+            levels.add(file);
+        } else
+            throw new IllegalArgumentException("No such file or directory: " + levelPath);
+        return true;
+    }
+
+    private static String getValue(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing the value of " + args[i - 1]);
+        return args[i];
+    }
+
+    private void printList() {
+        System.out.println("Search methods:");
+        for (int i = 0; i < allSearchMethods.length; i++)
+            System.out.println("  " + i + " - " + allSearchMethods[i]);
+        System.out.println("Heuristics:");
+        for (int i = 0; i < allHeuristics.length; i++)
+            System.out.println("  " + i + " - " + allHeuristics[i]);
+    }
+
+    private void run() throws IOException {
+        List<Integer> searchMethods = select(method, allSearchMethods, "search method");
+        List<Integer> heuristics = select(heuristic, allHeuristics, "heuristic");
+        if (method.equalsIgnoreCase("all") && limit == null)
+            searchMethods.removeIf(i -> MummyMazeBatchRunner.needsParameter(allSearchMethods[i]));
+        else if (limit == null)
+            for (int i : searchMethods)
+                if (MummyMazeBatchRunner.needsParameter(allSearchMethods[i]))
+                    throw new IllegalArgumentException(allSearchMethods[i] + " needs a limit.");
+
+        PrintStream out = output == null ? System.out : new PrintStream(Files.newOutputStream(output), false);
+        try {
+            if (format == Format.CSV)
+                out.print("Level;" + MummyMazeBatchRunner.CSV_HEADER);
+            else if (format == Format.JSON)
+                out.print("[");
+
+            for (int l = 0; l < levels.size(); l++) {
+                File file = levels.get(l);
+                MummyMazeLevel level = MummyMazeAgent.readLevelFromFile(file);
+                if (format == Format.JSON)
+                    out.print((l == 0 ? "\n" : ",\n") + "{\"level\":" + MummyMazeAgent.jsonString(file.getName()) + ",\"results\":[");
+                boolean first = true;
+                for (int i : searchMethods) {
+                    boolean informed = allSearchMethods[i] instanceof InformedSearch;
+                    //The uninformed search methods are run only once
+                    for (int h : informed ? heuristics : List.of(-1)) {
+                        MummyMazeAgent agent = solve(level, i, h);
+                        switch (format) {
+                            case TEXT -> out.print("Level: " + file.getName() + "\n" +
+                                    (h < 0 ? "" : "Heuristic: " + agent.getHeuristic() + "\n") +
+                                    agent.getSearchReport() + "\n");
+                            case CSV -> out.print("\n" + file.getName() + ";" + agent.getCsvSearchReport());
+                            case JSON -> out.print((first ? "\n  " : ",\n  ") + agent.getJsonSearchReport());
+                        }
+                        out.flush();
+                        first = false;
+                    }
+                }
+                if (format == Format.JSON)
+                    out.print("\n]}");
+            }
+
+            if (format == Format.CSV)
+                out.println();
+            else if (format == Format.JSON)
+                out.println("\n]");
+        } finally {
+            if (out != System.out)
+                out.close();
+        }
+    }
+
+    //A new agent for each run, so that every search starts from fresh search method instances
+    private MummyMazeAgent solve(MummyMazeLevel level, int searchMethodIndex, int heuristicIndex) {
+        MummyMazeAgent agent = new MummyMazeAgent(new MummyMazeState(level));
+        SearchMethod searchMethod = agent.getSearchMethodsArray()[searchMethodIndex];
+        if (MummyMazeBatchRunner.needsParameter(searchMethod)) {
+            if (searchMethod instanceof BeamSearch beamSearch)
+                beamSearch.setBeamSize(limit);
+            else
+                ((DepthLimitedSearch) searchMethod).setLimit(limit);
+        }
+        agent.setSearchMethod(searchMethod);
+        agent.setHeuristic(heuristicIndex < 0 ? null : agent.getHeuristicsArray()[heuristicIndex]);
+        agent.solveProblem(new MummyMazeProblem(agent.getEnvironment().clone()));
+        return agent;
+    }
+
+    //Indexes of the items chosen by an argument
+    private static List<Integer> select(String argument, Object[] items, String itemName) {
+        List<Integer> selected = new ArrayList<>();
+        if (argument.equalsIgnoreCase("all")) {
+            for (int i = 0; i < items.length; i++)
+                selected.add(i);
+            return selected;
+        }
+        try {
+            int index = Integer.parseInt(argument);
+            if (index < 0 || index >= items.length)
+                throw new IllegalArgumentException("There is no " + itemName + " with index " + index + ".");
+            selected.add(index);
+            return selected;
+        } catch (NumberFormatException e) {
+            String name = normalize(argument);
+            for (int i = 0; i < items.length; i++) {
+                String itemNormalized = normalize(items[i].toString());
+                if (itemNormalized.equals(name) || itemNormalized.equals(name + "search"))
+                    selected.add(i);
+            }
+            if (selected.isEmpty())
+                throw new IllegalArgumentException("Unknown " + itemName + ": " + argument);
+            return selected;
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9*]", "");
+    }
+}
@@ -3,12 +3,15 @@ package gui;
 import agent.Heuristic;
 import agent.Solution;
 import mummymaze.MummyMazeAgent;
+import mummymaze.MummyMazeBatchRunner;
 import mummymaze.MummyMazeProblem;
 import mummymaze.MummyMazeState;
 import mummymaze.util.TileType;
+import searchmethods.ARAStarSearch;
 import searchmethods.AStarSearch;
 import searchmethods.BeamSearch;
 import searchmethods.DepthLimitedSearch;
+import searchmethods.InformedSearch;
 import searchmethods.SearchMethod;
 
 import javax.swing.*;
@@ -25,6 +28,8 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.List;
+import java.util.function.Function;
 
 public class MainFrame extends JFrame {
 
@@ -45,11 +50,8 @@ public class MainFrame extends JFrame {
     private JTextArea textArea;
     private GameArea game;
 
-    private SwingWorker runningWorker;
-    private LinkedList<StringBuilder> stringBuilders;
-    private LinkedList<File> outputFiles;
-
-    private final String FILE_HEADER = "Search Algorithm;Heuristic;Limit Size;Solution Found;Solution Cost;Num of Expanded Nodes;Max Frontier Size;Num of Generated States;Time to solve (milliseconds)\n";
+    //Tests that are running, null when the tests are not running
+    private volatile MummyMazeBatchRunner runningBatch;
 
     public MainFrame() {
         try {
@@ -141,35 +143,11 @@ public class MainFrame extends JFrame {
         String rn = String.valueOf((new Random()).nextInt(99999 - 10000) + 10000);
         String folderName = fc.getSelectedFile().toPath() + "/" + dateStr + "-" + rn + "/";
         Files.createDirectories(Path.of(folderName));
-        try {
-            prepareForTests("Solving all levels...\n");
-
-            SwingWorker worker = new SwingWorker<Void, Void>() {
-                @Override
-                public Void doInBackground() {
-                    try {
-                        for (File file : Objects.requireNonNull(new File("./Niveis").listFiles())) {
-                            prepareFile(folderName + file.getName() + ".csv","Level;");
-                            testOnFile(file, true);
-                        }
-                    } catch (Exception e) {
-                        e.printStackTrace(System.err);
-                    }
-                    return null;
-                }
 
-                @Override
-                public void done() {
-                    finishTests(isCancelled());
-                }
-            };
-            runningWorker = worker;
-            worker.execute();
-
-
-        } catch (NoSuchElementException e2) {
-            JOptionPane.showMessageDialog(this, "File format not valid", "Error!", JOptionPane.ERROR_MESSAGE);
-        }
+        File[] levels = Objects.requireNonNull(new File("./Niveis").listFiles());
+        Arrays.sort(levels);
+        runTests(Arrays.asList(levels), true, file -> folderName + file.getName() + ".csv",
+                "Solving all levels...\n");
     }
 
     public void buttonTestALevel_ActionPerformed() throws IOException {
@@ -182,33 +160,40 @@ public class MainFrame extends JFrame {
         String dateStr = formatter.format(date);
         String rn = String.valueOf((new Random()).nextInt(99999 - 10000) + 10000);
         String fullPath = "./Testes/" + fc.getSelectedFile().getName() + "-" + dateStr + "-" + rn + ".csv";
-        try {
-            prepareForTests("Solving level " + fc.getSelectedFile().getName() + "...\n");
-
-            SwingWorker worker = new SwingWorker<Void, Void>() {
-                @Override
-                public Void doInBackground() {
-                    try {
-                        prepareFile(fullPath, "");
-                        testOnFile(fc.getSelectedFile(), false);
-                    } catch (Exception e) {
-                        e.printStackTrace(System.err);
-                    }
-                    return null;
-                }
 
-                @Override
-                public void done() {
-                    finishTests(isCancelled());
-                }
-            };
-            runningWorker = worker;
-            worker.execute();
+        runTests(List.of(fc.getSelectedFile()), false, file -> fullPath,
+                "Solving level " + fc.getSelectedFile().getName() + "...\n");
+    }
 
+    //The tests run in parallel, one csv file is written for each level when all of them finish
+    private void runTests(List<File> levels, boolean withLvlInfo, Function<File, String> outputPath, String msg) {
+        prepareForTests(msg);
+        MummyMazeBatchRunner runner = new MummyMazeBatchRunner(withLvlInfo);
+        runner.setProgressListener(message -> SwingUtilities.invokeLater(() -> textArea.append("\n" + message)));
+        runningBatch = runner;
 
-        } catch (NoSuchElementException e2) {
-            JOptionPane.showMessageDialog(this, "File format not valid", "Error!", JOptionPane.ERROR_MESSAGE);
-        }
+        SwingWorker worker = new SwingWorker<Void, Void>() {
+            @Override
+            public Void doInBackground() {
+                try {
+                    for (Map.Entry<File, String> report : runner.run(levels).entrySet())
+                        Files.writeString(Path.of(outputPath.apply(report.getKey())), report.getValue(),
+                                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                } catch (NoSuchElementException e) {
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(MainFrame.this,
+                            "File format not valid", "Error!", JOptionPane.ERROR_MESSAGE));
+                } catch (Exception e) {
+                    e.printStackTrace(System.err);
+                }
+                return null;
+            }
+
+            @Override
+            public void done() {
+                finishTests(runner.hasBeenStopped());
+            }
+        };
+        worker.execute();
     }
 
     private void prepareForTests(String msg) {
@@ -222,32 +207,12 @@ public class MainFrame extends JFrame {
         comboBoxSearchMethods.setEnabled(false);
         buttonTestALevel.setEnabled(false);
 
-        outputFiles = new LinkedList<>();
-        stringBuilders = new LinkedList<>();
-
         textArea.setText(msg);
     }
 
-    //It has to be synchronized because it is called from a different thread
-    private void finishTests(boolean wasCancelled) {
-        for(int f = 0; f<outputFiles.size(); f++){
-            File currentPath = outputFiles.get(f);
-            if(stringBuilders.size()<=f) continue; //In case it was stopped in an unfortunate timing
-            StringBuilder sb = stringBuilders.get(f);
-            if(wasCancelled && f==outputFiles.size()-1){ //If its on the last file and was cancelled the last test was interrupted
-                sb.append(agent.getCsvSearchReport());
-                sb.append("\nSTOPPED BY USER");
-            }
-            String fileContent = sb.toString();
-            if(fileContent.length() > 0)
-                try {
-                    Files.writeString(currentPath.toPath(), fileContent, StandardOpenOption.APPEND);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-        }
-
-        if (!agent.hasBeenStopped() && !wasCancelled) {
+    private void finishTests(boolean wasStopped) {
+        runningBatch = null;
+        if (!wasStopped) {
             textArea.append("\n\nDone! All tests were saved in the chosen folder.");
         }else{
             textArea.append("\n\nAction stopped! All finished tests were saved in the chosen folder.");
@@ -264,68 +229,6 @@ public class MainFrame extends JFrame {
         agent.setHeuristic((Heuristic) comboBoxHeuristics.getItemAt(comboBoxHeuristics.getSelectedIndex()));
     }
 
-    //It has to be synchronized because it is called from a different thread
-    private synchronized void prepareFile(String path, String extraHeader) throws IOException {
-        outputFiles.add(new File(path));
-        Files.writeString(outputFiles.getLast().toPath(),
-                extraHeader + FILE_HEADER, StandardOpenOption.CREATE);
-        stringBuilders.add(new StringBuilder());
-    }
-
-    //It has to be synchronized because it is called from a different thread
-    private synchronized void testOnFile(File file, boolean withLvlInfo) throws IOException {
-        StringBuilder sb = stringBuilders.getLast();
-        agent.readInitialStateFromFile(file);
-        textArea.append("\nRunning tests on " + file.getName() + "...");
-        for (int i = 0; i<agent.getSearchMethodsArray().length; i++) {
-
-            if(i==3 || i==7) continue; //Don't run tests on the search methods Limited Depth First Search and Beam Search, like the teacher said.
-
-            SearchMethod searchMethod = agent.getSearchMethodsArray()[i];
-            Heuristic[] heuristics = agent.getHeuristicsArray();
-
-            //If (index>4) the search method is informed therefore it should run a test for each heuristic available
-            //If the search method is not informed it should only run this one time (h==0)
-            for(int h = 0; (h<heuristics.length && ( h==0 || i>4 )); h++ ){
-
-                //If the search method is not informed this will stay null
-                Heuristic heuristic = null;
-
-                textArea.append("\n\t" + searchMethod);
-
-                //Only choose an heuristic if the search method is informed
-                if(i>4){
-                    heuristic = agent.getHeuristicsArray()[h];
-                    textArea.append(" (" + heuristic + " )");
-                }
-
-                agent.setHeuristic(heuristic);
-
-                agent.resetEnvironment(); //Reset the level for each test
-                agent.setSearchMethod(searchMethod);
-
-                textArea.append("...");
-                MummyMazeProblem problem = new MummyMazeProblem(agent.getEnvironment().clone());
-                sb.append("\n");
-                if(withLvlInfo)
-                    sb.append(file.getName()).append(";");
-                try{
-                    agent.solveProblem(problem);
-                    if(agent.hasBeenStopped())
-                        textArea.append(" Stopped.");
-                    else
-                        textArea.append(" Ok.");
-                    sb.append(agent.getCsvSearchReport());
-                }catch(Exception e){
-                    textArea.append(" Not ok.");
-                    sb.append(agent.getCsvSearchReport().replaceFirst("ERROR", ""));
-                }
-            }
-        }
-        stringBuilders.set(stringBuilders.size()-1, sb);
-        textArea.append("\nFinished tests on " + file.getName() + ".\n");
-    }
-
     public void buttonInitialState_ActionPerformed() {
         JFileChooser fc = new JFileChooser(new java.io.File("./Niveis"));
         try {
@@ -344,15 +247,16 @@ public class MainFrame extends JFrame {
 
     public void comboBoxSearchMethods_ActionPerformed() {
         int index = comboBoxSearchMethods.getSelectedIndex();
-        agent.setSearchMethod((SearchMethod) comboBoxSearchMethods.getItemAt(index));
+        SearchMethod searchMethod = (SearchMethod) comboBoxSearchMethods.getItemAt(index);
+        agent.setSearchMethod(searchMethod);
         game.setState(agent.resetEnvironment());
         buttonSolve.setEnabled(true);
         buttonShowSolution.setEnabled(false);
         buttonReset.setEnabled(false);
         textArea.setText("");
-        comboBoxHeuristics.setEnabled(index > 4); //Informed search methods
-        textFieldSearchParameter.setEnabled(index == 3 || index == 7); // limited depth or beam search
-        labelSearchParameter.setEnabled(index == 3 || index == 7); // limited depth or beam search
+        comboBoxHeuristics.setEnabled(searchMethod instanceof InformedSearch);
+        textFieldSearchParameter.setEnabled(MummyMazeBatchRunner.needsParameter(searchMethod)); // limited depth or beam search
+        labelSearchParameter.setEnabled(MummyMazeBatchRunner.needsParameter(searchMethod)); // limited depth or beam search
     }
 
     public void comboBoxHeuristics_ActionPerformed() {
@@ -387,7 +291,8 @@ public class MainFrame extends JFrame {
 
             @Override
             public void done() {
-                if (!agent.hasBeenStopped()) {
+                //Anytime searches that are stopped still return the best solution they found
+                if (!agent.hasBeenStopped() || agent.hasSolution()) {
                     textArea.setText(agent.getSearchReport());
                     if (agent.hasSolution()) {
                         game.setSolutionCost(agent.getSolutionCost());
@@ -405,9 +310,11 @@ public class MainFrame extends JFrame {
     }
 
     public void buttonStop_ActionPerformed() {
-        agent.stop();
-        if(runningWorker != null)
-            runningWorker.cancel(true);
+        MummyMazeBatchRunner batch = runningBatch;
+        if (batch != null)
+            batch.stop();
+        else
+            agent.stop();
         buttonShowSolution.setEnabled(false);
         buttonStop.setEnabled(false);
         buttonSolve.setEnabled(true);
@@ -450,6 +357,10 @@ public class MainFrame extends JFrame {
         } else if (agent.getSearchMethod() instanceof BeamSearch) {
             BeamSearch searchMethod = (BeamSearch) agent.getSearchMethod();
             searchMethod.setBeamSize(Integer.parseInt(textFieldSearchParameter.getText()));
+        } else if (agent.getSearchMethod() instanceof ARAStarSearch searchMethod) {
+            //Shows each cheaper solution as it is found, while the search goes on
+            searchMethod.setSolutionListener((solution, bound) -> SwingUtilities.invokeLater(() ->
+                    textArea.append("Solution found, cost: " + solution.getCost() + " (at most " + bound + " times the optimal)\n")));
         }
     }
 }
@@ -1,6 +1,7 @@
 package mummymaze;
 
 import agent.Agent;
+import agent.Heuristic;
 import mummymaze.heuristics.HeuristicEnemyAndGoalDistance;
 import mummymaze.heuristics.HeuristicEnemyDistance;
 import mummymaze.heuristics.HeuristicGoalDistance;
@@ -10,6 +11,7 @@ import searchmethods.DepthLimitedSearch;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Scanner;
 
 public class MummyMazeAgent extends Agent<MummyMazeState> {
@@ -19,10 +21,17 @@ public class MummyMazeAgent extends Agent<MummyMazeState> {
     public MummyMazeAgent(MummyMazeState environment) {
         super(environment);
         initialEnvironment = environment.clone();
+        heuristics.addAll(createHeuristics());
+        heuristic = heuristics.get(0);
+    }
+
+    //A new instance of each heuristic, also used to list them without a level
+    public static ArrayList<Heuristic> createHeuristics() {
+        ArrayList<Heuristic> heuristics = new ArrayList<>();
         heuristics.add(new HeuristicGoalDistance());
         heuristics.add(new HeuristicEnemyDistance());
         heuristics.add(new HeuristicEnemyAndGoalDistance());
-        heuristic = heuristics.get(0);
+        return heuristics;
     }
 
     public MummyMazeState resetEnvironment() {
@@ -31,6 +40,13 @@ public class MummyMazeAgent extends Agent<MummyMazeState> {
     }
 
     public MummyMazeState readInitialStateFromFile(File file) throws IOException {
+        //The static part of the level (walls, doors, traps, key and exit) is preprocessed only once
+        initialEnvironment = new MummyMazeState(readLevelFromFile(file));
+        resetEnvironment();
+        return environment;
+    }
+
+    public static MummyMazeLevel readLevelFromFile(File file) throws IOException {
         Scanner scanner = new java.util.Scanner(file);
         TileType[][] matrix = new TileType[13][13];
 
@@ -40,9 +56,7 @@ public class MummyMazeAgent extends Agent<MummyMazeState> {
                 matrix[i][j] = TileType.getTileType(line.charAt(j));
         }
 
-        initialEnvironment = new MummyMazeState(matrix);
-        resetEnvironment();
-        return environment;
+        return new MummyMazeLevel(matrix);
     }
 
     public String getCsvSearchReport(){
@@ -57,10 +71,11 @@ public class MummyMazeAgent extends Agent<MummyMazeState> {
             sb.append("N/A");
 
         sb.append(";");
+        //A stopped anytime search may still have found a solution
         if(solution==null){
-            sb.append("NO;N/A;");
+            sb.append((hasBeenStopped()?"STOPPED":"NO")).append(";N/A;");
         }else{
-            sb.append((hasBeenStopped()?"STOPPED":"YES")).append(";").append(solution.getCost()).append(";");
+            sb.append((hasBeenStopped()?"YES (STOPPED)":"YES")).append(";").append(solution.getCost()).append(";");
         }
         sb.append(searchMethod.getStatistics().numExpandedNodes).append(";");
         sb.append(searchMethod.getStatistics().maxFrontierSize).append(";");
@@ -70,6 +85,51 @@ public class MummyMazeAgent extends Agent<MummyMazeState> {
         return sb.toString();
     }
 
+    //Same statistics as getCsvSearchReport, as a json object
+    public String getJsonSearchReport(){
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"searchMethod\":").append(jsonString(searchMethod.toString())).append(",");
+        sb.append("\"heuristic\":").append(heuristic==null?"null":jsonString(heuristic.toString())).append(",");
+        sb.append("\"limit\":");
+        if(searchMethod instanceof BeamSearch bs){
+            sb.append(bs.getBeamSize());
+        }else if(searchMethod instanceof DepthLimitedSearch dls){
+            sb.append(dls.getDepthLimit());
+        }else
+            sb.append("null");
+
+        sb.append(",\"solutionFound\":");
+        if(solution==null){
+            sb.append("\"NO\",\"solutionCost\":null,");
+        }else{
+            sb.append("\"YES\",\"solutionCost\":").append(solution.getCost()).append(",");
+        }
+        sb.append("\"stopped\":").append(hasBeenStopped()).append(",");
+        sb.append("\"expandedNodes\":").append(searchMethod.getStatistics().numExpandedNodes).append(",");
+        sb.append("\"maxFrontierSize\":").append(searchMethod.getStatistics().maxFrontierSize).append(",");
+        sb.append("\"generatedStates\":").append(searchMethod.getStatistics().numGeneratedSates).append(",");
+        if(searchMethod.getStatistics().numLayers>0){
+            sb.append("\"layers\":").append(searchMethod.getStatistics().numLayers).append(",");
+            sb.append("\"maxLayerWidth\":").append(searchMethod.getStatistics().maxLayerWidth).append(",");
+            sb.append("\"maxLayerSuccessors\":").append(searchMethod.getStatistics().maxLayerCandidates).append(",");
+            sb.append("\"tiesBroken\":").append(searchMethod.getStatistics().numTiesBroken).append(",");
+        }
+        if(searchMethod.getStatistics().numThreads>0){
+            sb.append("\"threads\":").append(searchMethod.getStatistics().numThreads).append(",");
+            sb.append("\"reExpansions\":").append(searchMethod.getStatistics().numReExpansions).append(",");
+            sb.append("\"contendedAccesses\":").append(searchMethod.getStatistics().numContendedAccesses).append(",");
+        }
+        if(searchMethod.getStatistics().numForgottenNodes>0)
+            sb.append("\"forgottenNodes\":").append(searchMethod.getStatistics().numForgottenNodes).append(",");
+        sb.append("\"timeInMillis\":").append(timeInMillis).append("}");
+
+        return sb.toString();
+    }
+
+    public static String jsonString(String s){
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
     public double getSolutionCost(){
         if(hasSolution())
             return solution.getCost();
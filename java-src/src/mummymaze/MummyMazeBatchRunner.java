@@ -0,0 +1,170 @@
+package mummymaze;
+
+import agent.Heuristic;
+import searchmethods.BeamSearch;
+import searchmethods.DepthLimitedSearch;
+import searchmethods.InformedSearch;
+import searchmethods.IterativeDeepeningSearch;
+import searchmethods.ParallelSearchMethod;
+import searchmethods.SearchMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/*
+ * Solves every (level, search method, heuristic) combination of a list of levels, spreading the
+ * jobs over a pool of threads. Each job has its own agent, and therefore its own search method and
+ * heuristic instances, so no search state is shared between threads. The parsed levels are immutable
+ * and shared by all the jobs of the same level.
+ * The reports are merged in the same order the jobs were created, so the output doesn't depend on
+ * the number of threads or on the order in which the jobs finish.
+ * The parallel search methods get only their share of the processors, so that the jobs together
+ * don't run more threads than there are processors, which would make their times meaningless.
+ */
+public class MummyMazeBatchRunner {
+
+    public static final String CSV_HEADER = "Search Algorithm;Heuristic;Limit Size;Solution Found;Solution Cost;Num of Expanded Nodes;Max Frontier Size;Num of Generated States;Time to solve (milliseconds)\n";
+    public static final String STOPPED_FOOTER = "\nSTOPPED BY USER";
+
+    private final int numThreads;
+    private final boolean withLevelInfo;
+    private final Set<MummyMazeAgent> runningAgents = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+    private Consumer<String> progressListener = message -> {};
+
+    public MummyMazeBatchRunner(int numThreads, boolean withLevelInfo) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        this.numThreads = numThreads;
+        this.withLevelInfo = withLevelInfo;
+    }
+
+    public MummyMazeBatchRunner(boolean withLevelInfo) {
+        this(Runtime.getRuntime().availableProcessors(), withLevelInfo);
+    }
+
+    //Search methods that need a limit or beam size are not run, they have no meaningful default.
+    public static boolean needsParameter(SearchMethod searchMethod) {
+        return searchMethod instanceof BeamSearch ||
+                (searchMethod instanceof DepthLimitedSearch && !(searchMethod instanceof IterativeDeepeningSearch));
+    }
+
+    /*
+     * Returns the csv report of each level, in the order of the given list.
+     * If the runner is stopped, the jobs that were running are reported as stopped, the ones that
+     * didn't start are left out and the reports of the affected levels end with STOPPED_FOOTER.
+     */
+    public LinkedHashMap<File, String> run(List<File> levels) throws IOException, InterruptedException {
+        stopped = false;
+        ExecutorService pool = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            LinkedHashMap<File, List<Future<String>>> jobs = new LinkedHashMap<>();
+            for (File file : levels) {
+                MummyMazeLevel level = MummyMazeAgent.readLevelFromFile(file);
+                //Only used to know which search methods and heuristics exist
+                MummyMazeAgent agent = new MummyMazeAgent(new MummyMazeState(level));
+                SearchMethod[] searchMethods = agent.getSearchMethodsArray();
+                int numHeuristics = agent.getHeuristicsArray().length;
+                List<Future<String>> levelJobs = new ArrayList<>();
+                for (int i = 0; i < searchMethods.length; i++) {
+                    if (needsParameter(searchMethods[i]))
+                        continue;
+                    if (searchMethods[i] instanceof InformedSearch) {
+                        for (int h = 0; h < numHeuristics; h++) {
+                            int searchMethodIndex = i, heuristicIndex = h;
+                            levelJobs.add(pool.submit(() -> runJob(file, level, searchMethodIndex, heuristicIndex)));
+                        }
+                    } else {
+                        int searchMethodIndex = i;
+                        levelJobs.add(pool.submit(() -> runJob(file, level, searchMethodIndex, -1)));
+                    }
+                }
+                jobs.put(file, levelJobs);
+            }
+
+            LinkedHashMap<File, String> reports = new LinkedHashMap<>();
+            for (Map.Entry<File, List<Future<String>>> entry : jobs.entrySet()) {
+                StringBuilder sb = new StringBuilder(withLevelInfo ? "Level;" : "").append(CSV_HEADER);
+                boolean complete = true;
+                for (Future<String> job : entry.getValue()) {
+                    String row = job.get();
+                    if (row == null || row.contains("STOPPED"))
+                        complete = false;
+                    if (row != null)
+                        sb.append("\n").append(row);
+                }
+                if (!complete)
+                    sb.append(STOPPED_FOOTER);
+                reports.put(entry.getKey(), sb.toString());
+            }
+            return reports;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            stop();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    //Returns null if the runner was stopped before the job started
+    private String runJob(File file, MummyMazeLevel level, int searchMethodIndex, int heuristicIndex) {
+        if (stopped)
+            return null;
+        MummyMazeAgent agent = new MummyMazeAgent(new MummyMazeState(level));
+        SearchMethod searchMethod = agent.getSearchMethodsArray()[searchMethodIndex];
+        Heuristic heuristic = heuristicIndex < 0 ? null : agent.getHeuristicsArray()[heuristicIndex];
+        if (searchMethod instanceof ParallelSearchMethod parallelSearch)
+            parallelSearch.setParallelism(Math.max(1, Runtime.getRuntime().availableProcessors() / numThreads));
+        agent.setSearchMethod(searchMethod);
+        agent.setHeuristic(heuristic);
+
+        String description = file.getName() + ": " + searchMethod + (heuristic == null ? "" : " (" + heuristic + ")");
+        runningAgents.add(agent);
+        //stop() may have been called before the agent was registered
+        if (stopped) {
+            runningAgents.remove(agent);
+            return null;
+        }
+        progressListener.accept("Running " + description + "...");
+        String report;
+        try {
+            agent.solveProblem(new MummyMazeProblem(agent.getEnvironment().clone()));
+            progressListener.accept(description + (agent.hasBeenStopped() ? " Stopped." : " Ok."));
+            report = agent.getCsvSearchReport();
+        } catch (Exception | OutOfMemoryError e) {
+            progressListener.accept(description + " Not ok.");
+            report = agent.getCsvSearchReport().replaceFirst("ERROR", "");
+        } finally {
+            runningAgents.remove(agent);
+        }
+        return withLevelInfo ? file.getName() + ";" + report : report;
+    }
+
+    public void stop() {
+        stopped = true;
+        for (MummyMazeAgent agent : runningAgents)
+            agent.stop();
+    }
+
+    public boolean hasBeenStopped() {
+        return stopped;
+    }
+
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    //Called from the worker threads
+    public void setProgressListener(Consumer<String> progressListener) {
+        this.progressListener = progressListener;
+    }
+}
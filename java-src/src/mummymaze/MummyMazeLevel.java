@@ -0,0 +1,228 @@
+package mummymaze;
+
+import mummymaze.util.TileType;
+
+import static mummymaze.util.TileType.*;
+
+/*
+ * Static part of a level: walls, doors, exit, traps and key never move, so they are read once
+ * from the level matrix and shared by every MummyMazeState of that level.
+ * The positions of the hero and enemies at the start of the level are also kept here,
+ * they are used to build the initial state.
+ * The walls are turned into a graph of the cells: for each cell, a bitmask of the directions
+ * that can be taken from it and the cell reached in each direction. Doors are the only edges that
+ * change, and they all toggle together, so there is one bitmask table for each door parity.
+ */
+public class MummyMazeLevel {
+
+    /*
+     * Order in which the enemy types move: scorpions first, so that a mummy that catches up with a
+     * scorpion in the same move kills it. Enemies of the same type move in row-major order of the
+     * cells they are in when the move starts, the order in which the original matrix was read.
+     */
+    private static final TileType[] ENEMY_TYPES = {SCORPION, RED_MUMMY, WHITE_MUMMY};
+
+    public static final int MAX_ENEMIES = 8;
+    //Cell indexes bigger than any cell of the grid, used when the hero is not inside the grid.
+    public static final int EXIT_CELL = 62;
+    public static final int NO_CELL = 63;
+
+    //Directions
+    public static final int UP = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 4;
+    public static final int RIGHT = 8;
+
+    private final int size;
+    private final int cellsPerRow;
+    //Tiles without entities, for each door parity (0 - doors as in the level file, 1 - doors toggled).
+    private final TileType[][][] tiles;
+    private final int keyCell;
+    private final long traps;
+    private final int heroCell;
+    private final TileType[] enemyTypes;
+    private final int[] enemyCells;
+    //Open directions of each cell, for each door parity
+    private final int[][] moves;
+    //Cell reached from each cell, indexed by cell * 4 + direction index
+    private final int[] neighbours;
+    //Matrix coordinates of each cell, including the exit
+    private final int[] cellX;
+    private final int[] cellY;
+
+    public MummyMazeLevel(TileType[][] matrix) {
+        size = matrix.length;
+        cellsPerRow = (size - 1) / 2;
+        if (cellsPerRow * cellsPerRow > EXIT_CELL)
+            throw new IllegalArgumentException("Levels with more than " + EXIT_CELL + " cells are not supported.");
+
+        tiles = new TileType[2][size][size];
+        int exitX = -1, exitY = -1;
+        int keyCell = -1;
+        long traps = 0;
+        int heroCell = NO_CELL;
+        int numEnemies = 0;
+        int[] enemyCells = new int[size * size];
+        TileType[] enemyTypes = new TileType[size * size];
+
+        //Enemies are grouped by type so that they move in the same order in every state.
+        for (TileType enemyType : ENEMY_TYPES)
+            for (int i = 0; i < size; i++)
+                for (int j = 0; j < size; j++)
+                    if (matrix[i][j] == enemyType) {
+                        enemyTypes[numEnemies] = enemyType;
+                        enemyCells[numEnemies++] = getCell(i, j);
+                    }
+        if (numEnemies > MAX_ENEMIES)
+            throw new IllegalArgumentException("Levels with more than " + MAX_ENEMIES + " enemies are not supported.");
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                TileType tile = matrix[i][j];
+                if (tile != null)
+                    switch (tile) {
+                        case HERO -> {
+                            heroCell = getCell(i, j);
+                            tile = EMPTY;
+                        }
+                        case WHITE_MUMMY, RED_MUMMY, SCORPION -> {
+                            tile = EMPTY;
+                        }
+                        case EXIT -> {
+                            exitX = i;
+                            exitY = j;
+                        }
+                        case KEY -> {
+                            keyCell = getCell(i, j);
+                        }
+                        case TRAP -> {
+                            traps |= 1L << getCell(i, j);
+                        }
+                    }
+                tiles[0][i][j] = tile;
+                tiles[1][i][j] = toggleDoor(tile);
+            }
+        }
+
+        this.keyCell = keyCell;
+        this.traps = traps;
+        this.heroCell = heroCell;
+        this.enemyTypes = new TileType[numEnemies];
+        this.enemyCells = new int[numEnemies];
+        System.arraycopy(enemyTypes, 0, this.enemyTypes, 0, numEnemies);
+        System.arraycopy(enemyCells, 0, this.enemyCells, 0, numEnemies);
+
+        int numCells = cellsPerRow * cellsPerRow;
+        cellX = new int[NO_CELL + 1];
+        cellY = new int[NO_CELL + 1];
+        moves = new int[2][numCells];
+        neighbours = new int[numCells * 4];
+        for (int cell = 0; cell < numCells; cell++) {
+            int x = (cell / cellsPerRow) * 2 + 1;
+            int y = (cell % cellsPerRow) * 2 + 1;
+            cellX[cell] = x;
+            cellY[cell] = y;
+            neighbours[cell * 4] = x == 1 ? EXIT_CELL : cell - cellsPerRow;
+            neighbours[cell * 4 + 1] = x == size - 2 ? EXIT_CELL : cell + cellsPerRow;
+            neighbours[cell * 4 + 2] = y == 1 ? EXIT_CELL : cell - 1;
+            neighbours[cell * 4 + 3] = y == size - 2 ? EXIT_CELL : cell + 1;
+            for (int doorParity = 0; doorParity < 2; doorParity++) {
+                TileType[][] t = tiles[doorParity];
+                int open = 0;
+                if (x == 1 ? t[x - 1][y] == EXIT : canVerticallyPass(t[x - 1][y]))
+                    open |= UP;
+                if (x == size - 2 ? t[x + 1][y] == EXIT : canVerticallyPass(t[x + 1][y]))
+                    open |= DOWN;
+                if (y == 1 ? t[x][y - 1] == EXIT : canHorizontallyPass(t[x][y - 1]))
+                    open |= LEFT;
+                if (y == size - 2 ? t[x][y + 1] == EXIT : canHorizontallyPass(t[x][y + 1]))
+                    open |= RIGHT;
+                moves[doorParity][cell] = open;
+            }
+        }
+        if (exitX >= 0) {
+            cellX[EXIT_CELL] = exitX;
+            cellY[EXIT_CELL] = exitY;
+        }
+    }
+
+    private static TileType toggleDoor(TileType tile) {
+        if (tile == null)
+            return null;
+        return switch (tile) {
+            case V_DOOR_CLOSED -> V_DOOR_OPEN;
+            case V_DOOR_OPEN -> V_DOOR_CLOSED;
+            case H_DOOR_CLOSED -> H_DOOR_OPEN;
+            case H_DOOR_OPEN -> H_DOOR_CLOSED;
+            default -> tile;
+        };
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCellsPerRow() {
+        return cellsPerRow;
+    }
+
+    public int getCell(int x, int y) {
+        return (x / 2) * cellsPerRow + y / 2;
+    }
+
+    //Matrix row of a cell
+    public int getX(int cell) {
+        return cellX[cell];
+    }
+
+    //Matrix column of a cell
+    public int getY(int cell) {
+        return cellY[cell];
+    }
+
+    //Directions that can be taken from a cell, without considering traps or entities
+    public int getMoves(int doorParity, int cell) {
+        return moves[doorParity][cell];
+    }
+
+    public int getNeighbour(int cell, int direction) {
+        return neighbours[cell * 4 + Integer.numberOfTrailingZeros(direction)];
+    }
+
+    public TileType[][] getTiles(int doorParity) {
+        return tiles[doorParity];
+    }
+
+    //Matrix coordinates of the exit
+    public int getExitX() {
+        return cellX[EXIT_CELL];
+    }
+
+    public int getExitY() {
+        return cellY[EXIT_CELL];
+    }
+
+    public int getKeyCell() {
+        return keyCell;
+    }
+
+    public boolean isTrap(int cell) {
+        return (traps & (1L << cell)) != 0;
+    }
+
+    public int getHeroCell() {
+        return heroCell;
+    }
+
+    public int getNumEnemies() {
+        return enemyTypes.length;
+    }
+
+    public TileType getEnemyType(int enemy) {
+        return enemyTypes[enemy];
+    }
+
+    public int getEnemyCell(int enemy) {
+        return enemyCells[enemy];
+    }
+}
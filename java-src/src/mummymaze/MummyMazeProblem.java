@@ -1,32 +1,36 @@
 package mummymaze;
 
 import agent.Action;
+import agent.PackedStateProblem;
 import agent.Problem;
+import agent.State;
+import agent.UndoableProblem;
 import mummymaze.actions.*;
-import mummymaze.util.TileType;
 
-import java.awt.*;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-public class MummyMazeProblem extends Problem<MummyMazeState> {
+public class MummyMazeProblem extends Problem<MummyMazeState> implements PackedStateProblem<MummyMazeState>,
+        UndoableProblem<MummyMazeState> {
 
-    protected List<Action> actions;
+    protected final Action[] actions;
+    //If true, getSuccessors leaves out the states where the hero dies, as they can't lead to the goal
+    protected boolean pruneHeroDeaths = true;
 
     public MummyMazeProblem(MummyMazeState initialState) {
         super(initialState);
-        actions = new LinkedList<>() {{
-            add(new ActionDown());
-            add(new ActionUp());
-            add(new ActionRight());
-            add(new ActionLeft());
-            add(new ActionStay());
-        }};
+        actions = new Action[]{
+                new ActionDown(),
+                new ActionUp(),
+                new ActionRight(),
+                new ActionLeft(),
+                new ActionStay()
+        };
     }
 
     @Override
     public List<Action<MummyMazeState>> getActions(MummyMazeState state) {
-        List<Action<MummyMazeState>> possibleActions = new LinkedList<>();
+        List<Action<MummyMazeState>> possibleActions = new ArrayList<>(actions.length);
 
         //If the hero has died, you can't keep going, no possible actions
         if (state.isHeroDead()){
@@ -39,6 +43,18 @@ public class MummyMazeProblem extends Problem<MummyMazeState> {
         return possibleActions;
     }
 
+    @Override
+    public int getActions(MummyMazeState state, Action[] possibleActions) {
+        if (state.isHeroDead())
+            return 0;
+
+        int numActions = 0;
+        for (Action action : actions)
+            if (action.isValid(state))
+                possibleActions[numActions++] = action;
+        return numActions;
+    }
+
     @Override
     public MummyMazeState getSuccessor(MummyMazeState state, Action action) {
         MummyMazeState successor = state.clone();
@@ -47,6 +63,79 @@ public class MummyMazeProblem extends Problem<MummyMazeState> {
         return successor;
     }
 
+    @Override
+    public int getMaxSuccessors() {
+        return actions.length;
+    }
+
+    @Override
+    public int getSuccessors(MummyMazeState state, State[] successors) {
+        //If the hero has died, you can't keep going, no possible actions
+        if (state.isHeroDead())
+            return 0;
+
+        int numSuccessors = 0;
+        MummyMazeState successor = null;
+        for (Action action : actions) {
+            if (!action.isValid(state))
+                continue;
+            //A successor where the hero died is reused for the next action instead of being kept
+            if (successor == null)
+                successor = state.clone();
+            else
+                successor.copyFrom(state);
+            successor.executeAction(action);
+            if (!pruneHeroDeaths || !successor.isHeroDead()) {
+                successors[numSuccessors++] = successor;
+                successor = null;
+            }
+        }
+        return numSuccessors;
+    }
+
+    public boolean isPruningHeroDeaths() {
+        return pruneHeroDeaths;
+    }
+
+    public void setPruneHeroDeaths(boolean pruneHeroDeaths) {
+        this.pruneHeroDeaths = pruneHeroDeaths;
+    }
+
+    @Override
+    public boolean hasIntegerCosts() {
+        return true;
+    }
+
+    @Override
+    public long packState(MummyMazeState state) {
+        return state.getPacked();
+    }
+
+    @Override
+    public MummyMazeState unpackState(long packed) {
+        return new MummyMazeState(initialState.getLevel(), packed);
+    }
+
+    @Override
+    public boolean doAction(MummyMazeState state, Action action) {
+        state.executeUndoableAction(action);
+        if (pruneHeroDeaths && state.isHeroDead()) {
+            state.undoAction();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void redoAction(MummyMazeState state, Action action, long packed) {
+        state.executeUndoableAction(action, packed);
+    }
+
+    @Override
+    public void undoAction(MummyMazeState state) {
+        state.undoAction();
+    }
+
     @Override
     public boolean isGoal(MummyMazeState state) {
         return state.isAtGoal();
@@ -3,322 +3,362 @@ package mummymaze;
 import agent.Action;
 import agent.State;
 import mummymaze.actions.ActionStay;
-import mummymaze.util.Entity;
 import mummymaze.util.TileType;
 
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.SplittableRandom;
 
+import static mummymaze.MummyMazeLevel.*;
 import static mummymaze.util.TileType.*;
 
 public class MummyMazeState extends State implements Cloneable {
-    private final TileType[][] matrix;
-    //The matrix bellow is used to keep track of where traps and the key is so that if an enemy passes through them they don't get "deleted".
-    private final TileType[][] originalFloorsMatrix;
+    /*
+     * Only the entities and the doors change between states, the rest of the level is shared by
+     * every state through the MummyMazeLevel. The dynamic part is packed in a single long:
+     *  bits 0-5: hero cell
+     *  bit 6: hero is dead
+     *  bit 7: doors are toggled relatively to the level file
+     *  bits 8-63: 7 bits per enemy (6 bits for the cell and an alive bit), in the level's enemy order.
+     * Enemies of the same type are kept sorted by cell and dead enemies are cleared, so that two
+     * states that look the same also have the same packed value. That is also the order in which
+     * they move, see MummyMazeLevel.
+     */
+    private static final long CELL_MASK = 0x3F;
+    private static final int HERO_DEAD_BIT = 6;
+    private static final int DOORS_BIT = 7;
+    private static final int ENEMIES_SHIFT = 8;
+    private static final int ENEMY_BITS = 7;
+    private static final int ENEMY_MASK = 0x7F;
+    private static final int ENEMY_ALIVE = 0x40;
+
+    /*
+     * Zobrist keys: the hash of a state is the xor of the keys of the hero cell, of each alive enemy
+     * (by type and cell), of the doors and of the hero's death. It is updated with a couple of xors
+     * whenever one of them changes, instead of being computed from scratch in hashCode.
+     * Enemies of the same type share keys, so sorting them doesn't change the hash.
+     */
+    private static final long[] HERO_KEYS = new long[64];
+    private static final long[][] ENEMY_KEYS = new long[TileType.values().length][64];
+    private static final long DOORS_KEY;
+    private static final long HERO_DEAD_KEY;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x4D554D4D59L);
+        for (int i = 0; i < HERO_KEYS.length; i++)
+            HERO_KEYS[i] = random.nextLong();
+        for (long[] keys : ENEMY_KEYS)
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = random.nextLong();
+        DOORS_KEY = random.nextLong();
+        HERO_DEAD_KEY = random.nextLong();
+    }
+
+    private final MummyMazeLevel level;
+    private long packed;
+    private long hash;
+    /*
+     * Undo log of executeUndoableAction: the packed value and the hash before each action. Every
+     * change an action makes (hero and enemy moves, deaths, door toggles) is in those two longs,
+     * so restoring them undoes the action exactly. Not copied by clone.
+     */
+    private long[] undoLog;
+    private int undoLogSize;
     //Listeners
-    private final transient ArrayList<MummyMazeListener> listeners = new ArrayList<>(3);
+    private transient ArrayList<MummyMazeListener> listeners;
 
-    private HashMap<TileType, LinkedList<Entity>> enemies;
+    public MummyMazeState(TileType[][] matrix) {
+        this(new MummyMazeLevel(matrix));
+    }
 
-    private LinkedList<Point> doors;
+    public MummyMazeState(MummyMazeLevel level) {
+        this.level = level;
+        packed = level.getHeroCell();
+        for (int i = 0; i < level.getNumEnemies(); i++)
+            setEnemyField(i, ENEMY_ALIVE | level.getEnemyCell(i));
+        hash = computeHash();
+    }
 
-    private Entity hero;
-    private Point exit;
-    private Point key;
+    //State of the level with the given packed value, as returned by getPacked
+    public MummyMazeState(MummyMazeLevel level, long packed) {
+        this.level = level;
+        this.packed = packed;
+        hash = computeHash();
+    }
 
-    private boolean isHeroDead;
+    private MummyMazeState(MummyMazeLevel level, long packed, long hash) {
+        this.level = level;
+        this.packed = packed;
+        this.hash = hash;
+    }
 
-    public MummyMazeState(TileType[][] matrix) {
-        this(matrix, null);
-        for (int i = 0; i < matrix.length; i++) {
-            for (int j = 0; j < matrix.length; j++) {
-                if (matrix[i][j] != null) {
-                    if (shouldSaveFloorType(matrix[i][j]))
-                        originalFloorsMatrix[i][j] = matrix[i][j];
-                    else
-                        originalFloorsMatrix[i][j] = EMPTY;
-                }
-            }
-        }
+    private long computeHash() {
+        long h = HERO_KEYS[getHeroCell()];
+        if (isHeroDead())
+            h ^= HERO_DEAD_KEY;
+        if (getDoorParity() == 1)
+            h ^= DOORS_KEY;
+        for (int i = 0; i < level.getNumEnemies(); i++)
+            if (isEnemyAlive(i))
+                h ^= getEnemyKey(i, getEnemyCell(i));
+        return h;
     }
 
-    public MummyMazeState(TileType[][] matrix, TileType[][] originalFloorsMatrix) {
-        this.matrix = new TileType[matrix.length][matrix.length];
-        this.originalFloorsMatrix = new TileType[matrix.length][matrix.length];
+    private long getEnemyKey(int idx, int cell) {
+        return ENEMY_KEYS[level.getEnemyType(idx).ordinal()][cell];
+    }
 
-        this.enemies = new HashMap<>(3);
-        this.enemies.put(SCORPION, new LinkedList<>());
-        this.enemies.put(RED_MUMMY, new LinkedList<>());
-        this.enemies.put(WHITE_MUMMY, new LinkedList<>());
+    /* Accessors for the packed fields */
 
-        this.doors = new LinkedList<>();
+    private int getHeroCell() {
+        return (int) (packed & CELL_MASK);
+    }
 
-        isHeroDead = false;
+    private void setHeroCell(int cell) {
+        hash ^= HERO_KEYS[getHeroCell()] ^ HERO_KEYS[cell];
+        packed = (packed & ~CELL_MASK) | cell;
+    }
 
-        for (int i = 0; i < matrix.length; i++) {
-            for (int j = 0; j < matrix.length; j++) {
-                this.matrix[i][j] = matrix[i][j];
-                TileType tile = this.matrix[i][j];
-                Point pt = new Point(i, j);
-                if (tile != null)
-                    switch (tile) {
-                        case HERO -> {
-                            hero = new Entity(pt);
-                        }
-                        case WHITE_MUMMY, RED_MUMMY, SCORPION -> {
-                            this.enemies.get(tile).add(new Entity(pt));
-                        }
-                        case EXIT -> {
-                            exit = pt;
-                        }
-                        case KEY -> {
-                            key = pt;
-                        }
-                        case H_DOOR_CLOSED, H_DOOR_OPEN, V_DOOR_CLOSED, V_DOOR_OPEN -> {
-                            doors.add(pt);
-                        }
-                    }
-            }
-        }
+    private int getDoorParity() {
+        return (int) (packed >>> DOORS_BIT) & 1;
+    }
 
-        if (originalFloorsMatrix != null)
-            for (int i = 0; i < originalFloorsMatrix.length; i++)
-                this.originalFloorsMatrix[i] = Arrays.copyOf(originalFloorsMatrix[i], originalFloorsMatrix[i].length);
+    private int getEnemyField(int idx) {
+        return (int) (packed >>> (ENEMIES_SHIFT + idx * ENEMY_BITS)) & ENEMY_MASK;
     }
 
-    public void revertToOriginalTile(Point pos) {
-        matrix[pos.x][pos.y] = originalFloorsMatrix[pos.x][pos.y];
+    private void setEnemyField(int idx, int field) {
+        int shift = ENEMIES_SHIFT + idx * ENEMY_BITS;
+        packed = (packed & ~((long) ENEMY_MASK << shift)) | ((long) field << shift);
     }
 
-    public TileType getTile(Point pos) {
-        return matrix[pos.x][pos.y];
+    private int getEnemyCell(int idx) {
+        return getEnemyField(idx) & (int) CELL_MASK;
     }
 
-    public void setTile(Point pos, TileType tile) {
-        matrix[pos.x][pos.y] = tile;
+    //Moves an alive enemy
+    private void setEnemyCell(int idx, int cell) {
+        hash ^= getEnemyKey(idx, getEnemyCell(idx)) ^ getEnemyKey(idx, cell);
+        setEnemyField(idx, ENEMY_ALIVE | cell);
     }
 
-    public void toggleDoors() {
-        for (Point door : doors) {
-            switch (getTile(door)) {
-                case V_DOOR_CLOSED -> {
-                    setTile(door, V_DOOR_OPEN);
-                }
-                case V_DOOR_OPEN -> {
-                    setTile(door, V_DOOR_CLOSED);
-                }
-                case H_DOOR_CLOSED -> {
-                    setTile(door, H_DOOR_OPEN);
-                }
-                case H_DOOR_OPEN -> {
-                    setTile(door, H_DOOR_CLOSED);
-                }
-            }
-        }
+    private boolean isEnemyAlive(int idx) {
+        return (getEnemyField(idx) & ENEMY_ALIVE) != 0;
     }
 
-    public void checkHeroForDoorToggle(Action action) {
+    private void setEnemyDead(int idx) {
+        hash ^= getEnemyKey(idx, getEnemyCell(idx));
+        setEnemyField(idx, 0);
+    }
+
+    private boolean isEnemyAt(int cell) {
+        for (int i = 0; i < level.getNumEnemies(); i++)
+            if (isEnemyAlive(i) && getEnemyCell(i) == cell)
+                return true;
+        return false;
+    }
+
+    private void setHeroDead() {
+        //Where the hero died is not relevant, the cell is cleared so that equal states stay equal
+        setHeroCell(0);
+        hash ^= HERO_DEAD_KEY;
+        packed |= 1L << HERO_DEAD_BIT;
+    }
+
+    private void toggleDoors() {
+        hash ^= DOORS_KEY;
+        packed ^= 1L << DOORS_BIT;
+    }
+
+    //The key only toggles the doors if no one was standing on it when the move started
+    private boolean isKeyFree() {
+        int key = level.getKeyCell();
+        return key >= 0 && getHeroCell() != key && !isEnemyAt(key);
+    }
+
+    private void checkHeroForDoorToggle(Action action) {
         //Check if the hero stepped on the key
         //Only toggle the door if he just arrived at the key's tile, if he's staying there don't keep toggling it.
-        if (hero.equals(key) && !(action instanceof ActionStay))
+        if (getHeroCell() == level.getKeyCell() && !(action instanceof ActionStay))
             toggleDoors();
     }
 
     @Override
     public void executeAction(Action action) {
+        boolean keyFree = isKeyFree();
+
         action.execute(this);
 
-        checkHeroForDoorToggle(action);
+        if (keyFree)
+            checkHeroForDoorToggle(action);
 
         if (!isAtGoal())
-            updateEnemies();
+            updateEnemies(keyFree);
 
+        fireMazeChanged();
+    }
 
+    //Executes the action so that it can be undone by undoAction
+    public void executeUndoableAction(Action action) {
+        logUndo();
+        executeAction(action);
+    }
 
+    //Same as executeUndoableAction, for an action whose result is already known, as returned by getPacked
+    public void executeUndoableAction(Action action, long packed) {
+        logUndo();
+        this.packed = packed;
+        hash = computeHash();
+        this.action = action;
         fireMazeChanged();
     }
 
+    private void logUndo() {
+        if (undoLog == null)
+            undoLog = new long[32];
+        else if (undoLogSize == undoLog.length)
+            undoLog = Arrays.copyOf(undoLog, undoLogSize * 2);
+        undoLog[undoLogSize++] = packed;
+        undoLog[undoLogSize++] = hash;
+    }
+
+    //Undoes the last action executed by executeUndoableAction that wasn't undone yet
+    public void undoAction() {
+        if (undoLogSize == 0)
+            throw new IllegalStateException("There is no action to undo.");
+        hash = undoLog[--undoLogSize];
+        packed = undoLog[--undoLogSize];
+        action = null;
+        fireMazeChanged();
+    }
+
+    private boolean allowsHeroMovement(int cell) {
+        return !level.isTrap(cell) && !isEnemyAt(cell);
+    }
+
+    private boolean canMove(int direction) {
+        int hero = getHeroCell();
+        if (hero >= EXIT_CELL || (level.getMoves(getDoorParity(), hero) & direction) == 0)
+            return false;
+        int target = level.getNeighbour(hero, direction);
+        return target == EXIT_CELL || allowsHeroMovement(target);
+    }
+
     public boolean canMoveUp() {
-        if (hero.x > 1)
-            return canVerticallyPass(matrix[hero.x - 1][hero.y]) && allowsHeroMovement(matrix[hero.x - 2][hero.y]);
-        if (hero.x == 1)
-            return matrix[hero.x - 1][hero.y] == EXIT;
-        return false;
+        return canMove(UP);
     }
 
     public boolean canMoveDown() {
-        if (hero.x < getNumRows() - 2)
-            return canVerticallyPass(matrix[hero.x + 1][hero.y]) && allowsHeroMovement(matrix[hero.x + 2][hero.y]);
-        if (hero.x == matrix.length - 2)
-            return matrix[hero.x + 1][hero.y] == EXIT;
-        return false;
+        return canMove(DOWN);
     }
 
     public boolean canMoveLeft() {
-        if (hero.y > 1)
-            return canHorizontallyPass(matrix[hero.x][hero.y - 1]) && allowsHeroMovement(matrix[hero.x][hero.y - 2]);
-        if (hero.y == 1)
-            return matrix[hero.x][hero.y - 1] == EXIT;
-        return false;
+        return canMove(LEFT);
     }
 
     public boolean canMoveRight() {
-        if (hero.y < getNumCols() - 2)
-            return canHorizontallyPass(matrix[hero.x][hero.y + 1]) && allowsHeroMovement(matrix[hero.x][hero.y + 2]);
-        if (hero.y == matrix.length - 2)
-            return matrix[hero.x][hero.y + 1] == EXIT;
-        return false;
+        return canMove(RIGHT);
     }
 
     /*
      * In the next four methods we don't verify if the actions are valid.
-     * This is done in method executeActions in class EightPuzzleProblem.
+     * This is done in method getActions in class MummyMazeProblem.
      * Doing the verification in these methods would imply that a clone of the
      * state was created whether the operation could be executed or not.
      */
 
     public void moveUp() {
-        revertToOriginalTile(hero);
-        if (hero.x == 1) hero.x--;
-        else hero.x -= 2;
-        setTile(hero, HERO);
+        setHeroCell(level.getNeighbour(getHeroCell(), UP));
     }
 
     public void moveDown() {
-        revertToOriginalTile(hero);
-        if (hero.x == matrix.length - 2) hero.x++;
-        else hero.x += 2;
-        setTile(hero, HERO);
+        setHeroCell(level.getNeighbour(getHeroCell(), DOWN));
     }
 
     public void moveRight() {
-        revertToOriginalTile(hero);
-        if (hero.y == matrix.length - 2) hero.y += 1;
-        else hero.y += 2;
-        setTile(hero, HERO);
+        setHeroCell(level.getNeighbour(getHeroCell(), RIGHT));
     }
 
     public void moveLeft() {
-        revertToOriginalTile(hero);
-        if (hero.y == 1) hero.y -= 1;
-        else hero.y -= 2;
-        setTile(hero, HERO);
-    }
-
-    private void updateEnemies() {
-        boolean done = false;
-
-        for (TileType enemyType : enemies.keySet()) {
-            for (int i = 0; i < enemies.get(enemyType).size(); i++) {
-                if (!enemies.get(enemyType).get(i).isAlive())
-                    continue;
-                moveEnemy(enemyType, i);
-                if (isHeroDead) {
-                    done = true;
-                    break;
-                }
-            }
-            if (done) //to prevent unnecessary iterations
-                break;
-        }
+        setHeroCell(level.getNeighbour(getHeroCell(), LEFT));
     }
 
-    //Returns true if the enemy in question died. False only guarantees that THIS enemy is alive.
-    private boolean checkIfEnemyDied(TileType type, int idx) {
-        Point pos = enemies.get(type).get(idx);
-        for (TileType enemyType : enemies.keySet()) {
-            for (int i = 0; i < enemies.get(enemyType).size(); i++) {
-                if (!enemies.get(enemyType).get(i).isAlive())
-                    continue;
-                if (enemyType == type && i == idx)
-                    continue;
-                if (enemies.get(enemyType).get(i).equals(pos)) {
-                    //If the entity who just moved finds a scorpion and isn't one, it kills it.
-                    if (enemyType == SCORPION && type != SCORPION) {
-                        //The entity which just moved kills the scorpion
-                        enemies.get(enemyType).get(i).setDead();
-                        setTile(pos, type);
-                        return false;
-                    } else {
-                        enemies.get(type).get(idx).setDead();
-                        setTile(pos, enemyType);
-                        return true;
-                    }
-                }
+    private void updateEnemies(boolean keyFree) {
+        for (int i = 0; i < level.getNumEnemies() && !isHeroDead(); i++) {
+            if (isEnemyAlive(i))
+                moveEnemy(i, keyFree);
+        }
+        sortEnemies();
+    }
+
+    //Keeps the enemies of each type sorted by cell, with the dead ones at the end, for the next move.
+    private void sortEnemies() {
+        for (int i = 1; i < level.getNumEnemies(); i++) {
+            TileType type = level.getEnemyType(i);
+            int field = getEnemyField(i);
+            int j = i;
+            while (j > 0 && level.getEnemyType(j - 1) == type && sortKey(getEnemyField(j - 1)) > sortKey(field)) {
+                setEnemyField(j, getEnemyField(j - 1));
+                j--;
             }
+            setEnemyField(j, field);
         }
-        return false;
     }
 
-    /* Enemy movement methods: These always return true if the enemy managed to move, and false if not */
-
-    private boolean moveEnemyRow(TileType type, int idx, int dx) {
-        Entity pos = enemies.get(type).get(idx);
-        if (canVerticallyPass(matrix[pos.x + dx][pos.y])) {
-            revertToOriginalTile(pos);
-            pos.translate(dx * 2, 0);
-            saveEnemyPos(type, idx, pos);
-            return true;
-        }
-        return false;
+    private static int sortKey(int enemyField) {
+        return enemyField == 0 ? Integer.MAX_VALUE : enemyField;
     }
 
-    private boolean moveEnemyCol(TileType type, int idx, int dy) {
-        Entity pos = enemies.get(type).get(idx);
-        if (canHorizontallyPass(matrix[pos.x][pos.y + dy])) {
-            revertToOriginalTile(pos);
-            pos.translate(0, dy * 2);
-            saveEnemyPos(type, idx, pos);
-            return true;
+    //Returns true if the enemy in question died. False only guarantees that THIS enemy is alive.
+    private boolean checkIfEnemyDied(int idx) {
+        int cell = getEnemyCell(idx);
+        TileType type = level.getEnemyType(idx);
+        for (int i = 0; i < level.getNumEnemies(); i++) {
+            if (i == idx || !isEnemyAlive(i) || getEnemyCell(i) != cell)
+                continue;
+            //If the entity who just moved finds a scorpion and isn't one, it kills it.
+            if (level.getEnemyType(i) == SCORPION && type != SCORPION) {
+                setEnemyDead(i);
+                return false;
+            } else {
+                setEnemyDead(idx);
+                return true;
+            }
         }
         return false;
     }
 
-    //Saves the new enemy position
-    private void saveEnemyPos(TileType type, int idx, Entity en) {
-        setTile(en.getLocation(), type);
-        enemies.get(type).set(idx, en);
-    }
-
-    private boolean moveEnemyUp(TileType type, int idx) {
-        return moveEnemyRow(type, idx, -1);
-    }
-
-    private boolean moveEnemyDown(TileType type, int idx) {
-        return moveEnemyRow(type, idx, 1);
-    }
-
-    private boolean moveEnemyLeft(TileType type, int idx) {
-        return moveEnemyCol(type, idx, -1);
-    }
-
-    private boolean moveEnemyRight(TileType type, int idx) {
-        return moveEnemyCol(type, idx, 1);
+    //Enemy movement method: returns true if the enemy managed to move, and false if not
+    private boolean moveEnemyStep(int idx, int direction) {
+        int cell = getEnemyCell(idx);
+        if ((level.getMoves(getDoorParity(), cell) & direction) == 0)
+            return false;
+        setEnemyCell(idx, level.getNeighbour(cell, direction));
+        return true;
     }
 
     //True if the enemy is still alive, false otherwise.
-    private boolean moveEnemyOnce(TileType enemyType, int enemyIdx) {
-        boolean rowFirst = (enemyType == RED_MUMMY);
+    private boolean moveEnemyOnce(int enemyIdx, boolean keyFree) {
+        boolean rowFirst = (level.getEnemyType(enemyIdx) == RED_MUMMY);
+        int heroX = level.getX(getHeroCell());
+        int heroY = level.getY(getHeroCell());
 
         boolean enemyMoved = false;
         int tries = 0;
         //It will only enter this while if the enemy hasn't moved yet, so an if(enemyMoved) is not needed.
         while (!enemyMoved && tries < 2) {
-            Point pos = enemies.get(enemyType).get(enemyIdx);
+            int cell = getEnemyCell(enemyIdx);
             if (rowFirst) {
-                if (pos.x > hero.x)
-                    enemyMoved = moveEnemyUp(enemyType, enemyIdx);
-                else if (pos.x < hero.x)
-                    enemyMoved = moveEnemyDown(enemyType, enemyIdx);
+                if (level.getX(cell) > heroX)
+                    enemyMoved = moveEnemyStep(enemyIdx, UP);
+                else if (level.getX(cell) < heroX)
+                    enemyMoved = moveEnemyStep(enemyIdx, DOWN);
                 //If the enemy's row is the same as the hero's no point in moving to another row
             } else {
-                if (pos.y > hero.y)
-                    enemyMoved = moveEnemyLeft(enemyType, enemyIdx);
-                else if (pos.y < hero.y)
-                    enemyMoved = moveEnemyRight(enemyType, enemyIdx);
+                if (level.getY(cell) > heroY)
+                    enemyMoved = moveEnemyStep(enemyIdx, LEFT);
+                else if (level.getY(cell) < heroY)
+                    enemyMoved = moveEnemyStep(enemyIdx, RIGHT);
                 //If the enemy's column is the same as the hero's no point in moving to another column
             }
             tries++;
@@ -326,85 +366,80 @@ public class MummyMazeState extends State implements Cloneable {
         }
 
         if (enemyMoved) {
-            boolean enemyDied = checkIfEnemyDied(enemyType, enemyIdx);
-            if(!enemyDied){
-                Point pos = enemies.get(enemyType).get(enemyIdx);
-                if (pos.equals(hero))
-                    isHeroDead = true;
-                else{
-                    if(pos.equals(key)) //If enemy steps on the key, toggle the doors
-                        toggleDoors();
-                }
+            boolean enemyDied = checkIfEnemyDied(enemyIdx);
+            if (!enemyDied) {
+                int cell = getEnemyCell(enemyIdx);
+                if (cell == getHeroCell())
+                    setHeroDead();
+                else if (keyFree && cell == level.getKeyCell()) //If enemy steps on the key, toggle the doors
+                    toggleDoors();
             }
-
-
             return !enemyDied;
         }
 
         return true;
-
     }
 
-    private void moveEnemy(TileType enemyType, int enemyIdx) {
-        if (moveEnemyOnce(enemyType, enemyIdx)) //Only attempt the second movement if the enemy survived the first
-            if (isMummy(enemyType)) //Mummies will always try to move twice
-                moveEnemyOnce(enemyType, enemyIdx);
+    private void moveEnemy(int enemyIdx, boolean keyFree) {
+        if (moveEnemyOnce(enemyIdx, keyFree)) //Only attempt the second movement if the enemy survived the first
+            if (isMummy(level.getEnemyType(enemyIdx)) && !isHeroDead()) //Mummies will always try to move twice
+                moveEnemyOnce(enemyIdx, keyFree);
     }
 
-    private double calcDistToHero(Point pos) {
-        return Math.abs(hero.x - pos.x) + Math.abs(hero.y - pos.y);
+    private double calcDistToHero(int x, int y) {
+        int hero = getHeroCell();
+        return Math.abs(level.getX(hero) - x) + Math.abs(level.getY(hero) - y);
     }
 
     public double computeDistanceToClosestEnemy() {
-        final double maxPossibleDistance = ((matrix.length - 2) - 1) * 2;
+        final double maxPossibleDistance = ((getNumRows() - 2) - 1) * 2;
         double h = maxPossibleDistance;
-        double aux = maxPossibleDistance + 1;
+        boolean enemyAlive = false;
 
         //verificar morte e objetivo
-        if (isHeroDead) return Double.MAX_VALUE;
+        if (isHeroDead()) return Double.MAX_VALUE;
         if (isAtGoal()) return 0;
 
-        for (TileType enemyType : enemies.keySet()) {
-            for (int i = 0; i < enemies.get(enemyType).size(); i++) {
-                if (!enemies.get(enemyType).get(i).isAlive())
-                    continue;
-                aux = calcDistToHero(enemies.get(enemyType).get(i));
-                if (aux < h)
-                    h = aux;
-            }
+        for (int i = 0; i < level.getNumEnemies(); i++) {
+            if (!isEnemyAlive(i))
+                continue;
+            enemyAlive = true;
+            int cell = getEnemyCell(i);
+            h = Math.min(h, calcDistToHero(level.getX(cell), level.getY(cell)));
         }
 
-        return (aux > maxPossibleDistance ? computeDistanceToGoal() : maxPossibleDistance - h); //So that the lowest value, the better.
-        //If the aux is bigger than the maxPossibleDistance it means no enemy was alive, so we call the other heuristic
+        return (enemyAlive ? maxPossibleDistance - h : computeDistanceToGoal()); //So that the lowest value, the better.
+        //If no enemy is alive we call the other heuristic
     }
 
     public double computeDistanceToGoal() {
-        if (isHeroDead) return Double.MAX_VALUE;
-        return calcDistToHero(exit);
+        if (isHeroDead()) return Double.MAX_VALUE;
+        return calcDistToHero(level.getExitX(), level.getExitY());
     }
 
     public int getNumRows() {
-        return matrix.length;
+        return level.getSize();
     }
 
     public int getNumCols() {
-        return matrix[0].length;
+        return level.getSize();
     }
 
+    //The packed value holds every entity position, so comparing it is enough.
     @Override
     public boolean equals(Object other) {
         if (!(other instanceof MummyMazeState o)) return false;
-        if (matrix.length != o.matrix.length) return false;
-        return Arrays.deepEquals(matrix, o.matrix);
+        return packed == o.packed && level == o.level;
     }
 
     @Override
     public int hashCode() {
-        return 97 * 7 + Arrays.deepHashCode(this.matrix);
+        return Long.hashCode(hash);
     }
 
     @Override
     public String toString() {
+        TileType[][] matrix = getMatrix();
         StringBuilder buffer = new StringBuilder();
         for (TileType[] tileRow : matrix) {
             buffer.append('\n');
@@ -418,7 +453,14 @@ public class MummyMazeState extends State implements Cloneable {
 
     @Override
     public MummyMazeState clone() {
-        return new MummyMazeState(matrix, originalFloorsMatrix);
+        return new MummyMazeState(level, packed, hash);
+    }
+
+    //Turns this state back into a copy of the given state of the same level.
+    void copyFrom(MummyMazeState other) {
+        packed = other.packed;
+        hash = other.hash;
+        action = null;
     }
 
     public synchronized void removeListener(MummyMazeListener l) {
@@ -426,25 +468,51 @@ public class MummyMazeState extends State implements Cloneable {
     }
 
     public synchronized void addListener(MummyMazeListener l) {
+        if (listeners == null) listeners = new ArrayList<>(3);
         if (!listeners.contains(l)) listeners.add(l);
     }
 
     public void fireMazeChanged() {
+        if (listeners == null) return;
         for (MummyMazeListener listener : listeners)
             listener.mazeChanged(null);
     }
 
+    //Builds the matrix of the level as it is in this state.
     public TileType[][] getMatrix() {
+        TileType[][] tiles = level.getTiles(getDoorParity());
+        TileType[][] matrix = new TileType[tiles.length][];
+        for (int i = 0; i < tiles.length; i++)
+            matrix[i] = Arrays.copyOf(tiles[i], tiles[i].length);
+
+        int hero = getHeroCell();
+        if (!isHeroDead() && hero != NO_CELL)
+            matrix[level.getX(hero)][level.getY(hero)] = HERO;
+        for (int i = 0; i < level.getNumEnemies(); i++) {
+            if (isEnemyAlive(i)) {
+                int cell = getEnemyCell(i);
+                matrix[level.getX(cell)][level.getY(cell)] = level.getEnemyType(i);
+            }
+        }
         return matrix;
     }
 
+    //Hero, enemies and doors packed as described at the top of the class
+    public long getPacked() {
+        return packed;
+    }
+
+    public MummyMazeLevel getLevel() {
+        return level;
+    }
+
     public boolean isHeroDead() {
-        return isHeroDead;
+        return (packed & (1L << HERO_DEAD_BIT)) != 0;
     }
 
     @Override
     public boolean isAtGoal() {
-        return hero.equals(exit);
+        return getHeroCell() == EXIT_CELL;
     }
 
 }
@@ -0,0 +1,193 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.NodePriorityQueue;
+import utils.PriorityNodeCollection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/*
+ * Anytime repairing A* (ARA*): weighted A*, f = g + weight * h, run first with a high weight, which
+ * finds a solution fast, and then again with lower weights until the weight is 1. Each run starts from
+ * where the last one stopped: the frontier is kept, with f recomputed for the new weight, and the
+ * states that were reached by a cheaper path after they were expanded (the inconsistent ones) are put
+ * back in it. No state is expanded twice in the same run.
+ *
+ * A run ends when the best solution found costs no more than the best f of the frontier. Each time a
+ * cheaper solution is found it is given to the solution listener, with a bound on how much more
+ * expensive than the optimal one it can be if the heuristic is admissible. If the search is stopped,
+ * the best solution found so far is returned.
+ */
+public class ARAStarSearch extends InformedSearch {
+
+    private double initialWeight = 3;
+    private double weightDecrement = 0.5;
+    private BiConsumer<Solution, Double> solutionListener = (solution, bound) -> {};
+    private double weight;
+    private double suboptimalityBound;
+    //Cheapest node found for each state, in any run
+    private final HashMap<State, Node> reached = new HashMap<>();
+    //Expanded states reached again by a cheaper path in this run
+    private final HashMap<State, Node> inconsistent = new HashMap<>();
+    private Node incumbent;
+
+    @Override
+    protected Solution graphSearch(Problem problem) {
+        explored = createStateSet(problem);
+        reached.clear();
+        inconsistent.clear();
+        incumbent = null;
+        suboptimalityBound = Double.POSITIVE_INFINITY;
+        try {
+            return anytimeSearch(problem);
+        } finally {
+            reached.clear();
+            inconsistent.clear();
+        }
+    }
+
+    private Solution anytimeSearch(Problem problem) {
+        Node root = new Node(problem.getInitialState());
+        if (problem.isGoal(root.getState())) {
+            suboptimalityBound = 1;
+            Solution solution = new Solution(problem, root);
+            solutionListener.accept(solution, suboptimalityBound);
+            return solution;
+        }
+        reached.put(root.getState(), root);
+        frontier.add(root);
+
+        weight = initialWeight;
+        while (!stopped) {
+            Node previous = incumbent;
+            improvePath(problem);
+            if (stopped || incumbent == null)
+                break;
+            suboptimalityBound = Math.min(weight, computeBound());
+            if (incumbent != previous)
+                solutionListener.accept(new Solution(problem, incumbent), suboptimalityBound);
+            if (weight == 1 || suboptimalityBound <= 1)
+                break;
+            weight = Math.max(1, weight - weightDecrement);
+            startNextRun();
+        }
+        return incumbent == null ? null : new Solution(problem, incumbent);
+    }
+
+    //One run of weighted A*, until no node of the frontier can improve the incumbent
+    private void improvePath(Problem problem) {
+        while (!frontier.isEmpty() && !stopped) {
+            if (incumbent != null && incumbent.getG() <= frontier.peek().getF())
+                return;
+            Node n = frontier.poll();
+            State state = n.getState();
+            explored.add(state);
+            int numSuccessors = expand(problem, state);
+            for (int i = 0; i < numSuccessors; i++) {
+                State successor = successors[i];
+                successors[i] = null;
+                if (problem.isGoal(successor))
+                    offerSolution(successor, n);
+                else
+                    addSuccessorToFrontier(successor, n);
+            }
+            computeStatistics(numSuccessors);
+        }
+    }
+
+    //Goals are never expanded, a path through one costs more than stopping at it
+    private void offerSolution(State goal, Node parent) {
+        double g = parent.getG() + goal.getAction().getCost();
+        if (incumbent == null || g < incumbent.getG())
+            incumbent = new Node(goal, parent, g, g);
+    }
+
+    //f = g + weight * h
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        double g = parent.getG() + successor.getAction().getCost();
+        Node old = reached.get(successor);
+        if (old != null && old.getG() <= g)
+            return;
+        Node node = new Node(successor, parent, g, g + weight * heuristic.compute(successor));
+        reached.put(successor, node);
+        if (explored.contains(successor))
+            inconsistent.put(successor, node);
+        else if (frontier.containsState(successor))
+            frontier.replaceNode(node);
+        else
+            frontier.add(node);
+    }
+
+    //Cost of the incumbent over the smallest g + h of the nodes that could still lead to a cheaper one
+    private double computeBound() {
+        double minF = Double.POSITIVE_INFINITY;
+        for (Node n : frontier)
+            minF = Math.min(minF, n.getG() + heuristic.compute(n.getState()));
+        for (Node n : inconsistent.values())
+            minF = Math.min(minF, n.getG() + heuristic.compute(n.getState()));
+        return minF >= incumbent.getG() ? 1 : incumbent.getG() / minF;
+    }
+
+    //The frontier and the inconsistent states, with f computed with the new weight, and nothing expanded
+    private void startNextRun() {
+        List<Node> open = new ArrayList<>(frontier.size() + inconsistent.size());
+        open.addAll(frontier);
+        open.addAll(inconsistent.values());
+        frontier.clear();
+        inconsistent.clear();
+        explored.clear();
+        for (Node n : open) {
+            double g = n.getG();
+            Node node = n.getParent() == null ? n : new Node(n.getState(), n.getParent(), g, g + weight * heuristic.compute(n.getState()));
+            reached.put(node.getState(), node);
+            frontier.add(node);
+        }
+    }
+
+    //f values are weighted, so they aren't integers even if the costs are
+    @Override
+    protected PriorityNodeCollection createFrontier(Problem problem) {
+        return new NodePriorityQueue();
+    }
+
+    public double getInitialWeight() {
+        return initialWeight;
+    }
+
+    public void setInitialWeight(double initialWeight) {
+        if (initialWeight < 1)
+            throw new IllegalArgumentException("The weight can't be smaller than 1.");
+        this.initialWeight = initialWeight;
+    }
+
+    public double getWeightDecrement() {
+        return weightDecrement;
+    }
+
+    public void setWeightDecrement(double weightDecrement) {
+        if (weightDecrement <= 0)
+            throw new IllegalArgumentException("The weight decrement must be positive.");
+        this.weightDecrement = weightDecrement;
+    }
+
+    //Called with each cheaper solution found and its suboptimality bound
+    public void setSolutionListener(BiConsumer<Solution, Double> solutionListener) {
+        this.solutionListener = solutionListener;
+    }
+
+    //Of the last solution found, infinite if there is none
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    @Override
+    public String toString() {
+        return "ARA* search";
+    }
+}
@@ -1,23 +1,35 @@
 package searchmethods;
 
+import agent.Problem;
 import agent.State;
+import utils.NodeBucketQueue;
+import utils.NodePriorityQueue;
+import utils.PriorityNodeCollection;
 
 public class AStarSearch extends InformedSearch {
 
-    //f = g + h
+    //f = g + h, the heuristic is only computed for states that weren't reached before
     @Override
     public void addSuccessorToFrontier(State successor, Node parent) {
-        double h = heuristic.compute(successor);
         double g = parent.getG() + successor.getAction().getCost();
-        if (!frontier.containsState(successor)) {
+        Node inFrontier = frontier.getNode(successor);
+        if (inFrontier == null) {
             if (!explored.contains(successor))
-                frontier.add(new Node(successor, parent, g, g + h));
-        } else if (g < frontier.getNode(successor).getG()) {
-            frontier.removeNode(successor);
-            frontier.add(new Node(successor, parent, g, g + h));
+                frontier.add(new Node(successor, parent, g, g + heuristic.compute(successor)));
+        } else if (g < inFrontier.getG()) {
+            //Same state, same h
+            frontier.replaceNode(new Node(successor, parent, g, g + inFrontier.getF() - inFrontier.getG()));
         }
     }
 
+    //Between nodes with the same f, the deepest ones are closer to the goal
+    @Override
+    protected PriorityNodeCollection createFrontier(Problem problem) {
+        if (problem.hasIntegerCosts())
+            return new NodeBucketQueue(NodeBucketQueue.TieBreaking.HIGHEST_G);
+        return new NodePriorityQueue();
+    }
+
     @Override
     public String toString() {
         return "A* search";
@@ -1,16 +1,27 @@
 package searchmethods;
 
-import agent.Action;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
-import utils.NodePriorityQueue;
-
-import java.util.List;
-
-public class BeamSearch extends AStarSearch {
-
-    private int beamSize;
+import utils.BoundedNodeHeap;
+import utils.StateSet;
+
+import java.util.Arrays;
+
+/*
+ * Layered beam search: the whole beam is expanded at once and the next beam is made of the best
+ * beamSize successors (smallest f = g + h) that were never in a beam before. The best successors are
+ * kept in a bounded heap while they are generated, so the rest are never stored. Between successors
+ * with the same f, the one generated first (by a better node of the beam) is kept.
+ */
+public class BeamSearch extends InformedSearch {
+
+    protected int beamSize;
+    //Nodes of the beam being expanded, from the best to the worst
+    protected Node[] beam = new Node[0];
+    private BoundedNodeHeap nextBeam;
+    //Successors generated while expanding the current beam, so that each one is only offered once
+    protected StateSet layerStates;
 
     public BeamSearch() {
         this(100);
@@ -22,38 +33,73 @@ public class BeamSearch extends AStarSearch {
 
     @Override
     protected Solution graphSearch(Problem problem) {
-        frontier.clear();
-        explored.clear();
-        frontier.add(new Node(problem.getInitialState()));
+        //Every state that was in a beam
+        explored = createStateSet(problem);
+        layerStates = createStateSet(problem);
+        if (nextBeam == null || nextBeam.getCapacity() != beamSize) {
+            nextBeam = new BoundedNodeHeap(beamSize);
+            beam = new Node[beamSize];
+        }
+        Node root = new Node(problem.getInitialState());
+        explored.add(root.getState());
+        beam[0] = root;
+        int width = 1;
+
+        try {
+            while (width > 0 && !stopped) {
+                statistics.numLayers++;
+                statistics.maxLayerWidth = Math.max(statistics.maxLayerWidth, width);
+                Solution solution = expandBeam(problem, width);
+                if (solution != null)
+                    return solution;
+                statistics.maxLayerCandidates = Math.max(statistics.maxLayerCandidates, layerStates.size());
+                //The frontier is the beam being expanded and the best of its successors
+                statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, width + nextBeam.size());
+
+                width = nextBeam.removeAllSorted(beam);
+                for (int i = 0; i < width; i++)
+                    explored.add(beam[i].getState());
+                layerStates.clear();
+            }
+            return null;
+        } finally {
+            Arrays.fill(beam, null);
+            nextBeam.clear();
+        }
+    }
 
-        while (!frontier.isEmpty() && !stopped) {
-            Node n = frontier.poll();
+    /*
+     * Expands the nodes of the beam in order, offering their successors to the next beam, until one
+     * of them is a goal. Returns the solution of that goal, or null if there is none.
+     */
+    protected Solution expandBeam(Problem problem, int width) {
+        for (int i = 0; i < width && !stopped; i++) {
+            Node n = beam[i];
             State state = n.getState();
-
             if (problem.isGoal(state))
                 return new Solution(problem, n);
-
-            explored.add(state);
-            List<Action> actions = problem.getActions(state);
-
-            for (Action action : actions) {
-                State successor = problem.getSuccessor(state, action);
-                addSuccessorToFrontier(successor, n);
-            }
-
-            manageFrontierSize();
-            computeStatistics(actions.size());
+            int numSuccessors = expand(problem, state);
+            for (int j = 0; j < numSuccessors; j++)
+                addSuccessorToFrontier(successors[j], n);
+            statistics.numExpandedNodes++;
+            statistics.numGeneratedSates += numSuccessors;
         }
         return null;
     }
 
-    private void manageFrontierSize() {
-        if (frontier.size() > beamSize) {
-            NodePriorityQueue aux = new NodePriorityQueue();
-            for (int i = 0; i < beamSize; i++)
-                aux.add(frontier.poll());
-            frontier = aux;
-        }
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        if (!explored.contains(successor) && layerStates.add(successor))
+            offerSuccessor(successor, parent, heuristic.compute(successor));
+    }
+
+    protected void offerSuccessor(State successor, Node parent, double h) {
+        double g = parent.getG() + successor.getAction().getCost();
+        double f = g + h;
+        if (nextBeam.accepts(f))
+            nextBeam.offer(new Node(successor, parent, g, f));
+        else if (f == nextBeam.peekWorst().getF())
+            statistics.numTiesBroken++;
     }
 
     public int getBeamSize() {
@@ -61,6 +107,8 @@ public class BeamSearch extends AStarSearch {
     }
 
     public void setBeamSize(int beamSize) {
+        if (beamSize < 1)
+            throw new IllegalArgumentException("The beam size must be positive.");
         this.beamSize = beamSize;
     }
 
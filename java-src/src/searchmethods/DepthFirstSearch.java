@@ -1,15 +1,22 @@
 package searchmethods;
 
-import agent.Action;
+import agent.PackedStateProblem;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
 import utils.NodeLinkedList;
-
-import java.util.List;
+import utils.PathSet;
 
 public class DepthFirstSearch extends GraphSearch<NodeLinkedList> {
 
+    /*
+     * Packed states of the path to the node being expanded, for problems whose states can be packed,
+     * so that a successor is checked against its ancestors with a hash probe instead of a walk up
+     * the path. The frontier is a stack, so the parent of each node taken out of it is on the path.
+     */
+    protected PathSet path;
+    private PackedStateProblem packedProblem;
+
     public DepthFirstSearch() {
         frontier = new NodeLinkedList();
     }
@@ -18,19 +25,19 @@ public class DepthFirstSearch extends GraphSearch<NodeLinkedList> {
     protected Solution graphSearch(Problem problem) {
         frontier.clear();
         frontier.add(new Node(problem.getInitialState()));
+        preparePath(problem);
 
         while (!frontier.isEmpty() && !stopped) {
             Node n = frontier.poll();
+            enterNode(n);
             State state = n.getState();
             if (problem.isGoal(state)) {
                 return new Solution(problem, n);
             }
-            List<Action> actions = problem.getActions(state);
-            for (Action action : actions) {
-                State successor = problem.getSuccessor(state, action);
-                addSuccessorToFrontier(successor, n);
-            }
-            computeStatistics(actions.size());
+            int numSuccessors = expand(problem, state);
+            for (int i = 0; i < numSuccessors; i++)
+                addSuccessorToFrontier(successors[i], n);
+            computeStatistics(numSuccessors);
         }
         return null;
     }
@@ -39,12 +46,35 @@ public class DepthFirstSearch extends GraphSearch<NodeLinkedList> {
     public void addSuccessorToFrontier(State successor, Node parent) {
         if (!frontier.containsState(successor)) {
             //parent is always != null
-            if (!parent.isCycle(successor)) {
+            if (!isOnPath(successor, parent)) {
                 frontier.addFirst(new Node(successor, parent));
             }
         }
     }
 
+    protected void preparePath(Problem problem) {
+        packedProblem = problem instanceof PackedStateProblem p ? p : null;
+        if (packedProblem == null)
+            path = null;
+        else if (path == null)
+            path = new PathSet();
+        else
+            path.clear();
+    }
+
+    //Makes the path to the node, which is a child of a node of the current path, the current path
+    protected void enterNode(Node n) {
+        if (path != null) {
+            path.truncate(n.getDepth());
+            path.push(packedProblem.packState(n.getState()));
+        }
+    }
+
+    //True if the state is the parent or one of its ancestors, the parent must be the last node entered
+    protected boolean isOnPath(State state, Node parent) {
+        return path == null ? parent.isCycle(state) : path.contains(packedProblem.packState(state));
+    }
+
     @Override
     public String toString() {
         return "Depth first search";
@@ -1,12 +1,9 @@
 package searchmethods;
 
-import agent.Action;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
 
-import java.util.List;
-
 public class DepthLimitedSearch extends DepthFirstSearch {
 
     protected double limit;
@@ -23,23 +20,22 @@ public class DepthLimitedSearch extends DepthFirstSearch {
     protected Solution graphSearch(Problem problem) {
         frontier.clear();
         frontier.add(new Node(problem.getInitialState()));
+        preparePath(problem);
 
         while (!frontier.isEmpty() && !stopped) {
             Node n = frontier.poll();
+            enterNode(n);
             State state = n.getState();
             if (problem.isGoal(state)) {
                 return new Solution(problem, n);
             }
-            int successorsSize = 0;
+            int numSuccessors = 0;
             if (n.getDepth() < limit) {
-                List<Action> actions = problem.getActions(state);
-                successorsSize = actions.size();
-                for (Action action : actions) {
-                    State successor = problem.getSuccessor(state, action);
-                    addSuccessorToFrontier(successor, n);
-                }
+                numSuccessors = expand(problem, state);
+                for (int i = 0; i < numSuccessors; i++)
+                    addSuccessorToFrontier(successors[i], n);
             }
-            computeStatistics(successorsSize);
+            computeStatistics(numSuccessors);
         }
         return null;
     }
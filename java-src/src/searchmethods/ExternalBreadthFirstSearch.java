@@ -0,0 +1,318 @@
+package searchmethods;
+
+import agent.Action;
+import agent.PackedStateProblem;
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.LongFileReader;
+import utils.LongFileWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/*
+ * Breadth first search that keeps its layers on disk, for problems whose states can be packed and
+ * whose state space doesn't fit in memory. Each layer is a file of sorted packed states, read and
+ * written sequentially.
+ *
+ * The successors of a layer are gathered in memory in chunks of at most chunkSize states; each chunk
+ * is sorted and written to a run file. Repeated states are only removed once the whole layer is
+ * expanded (delayed duplicate detection): the runs are merged, and the result is merged with the
+ * sorted file of all the states already reached, leaving out those it has. What is left is the next
+ * layer, and the file of reached states is rewritten with it.
+ *
+ * Goals are checked when they are generated. The path is rebuilt from the goal back to the initial
+ * state by reading each layer again, looking for a state with an action that leads to the next one.
+ * Problems without packed states are searched by BreadthFirstSearch.
+ */
+public class ExternalBreadthFirstSearch extends BreadthFirstSearch {
+
+    //Runs merged at once, each one has a buffer in memory
+    private static final int MAX_RUNS_MERGED = 64;
+
+    private int chunkSize = 1 << 20;
+    private Path directory;
+    private Problem problem;
+    private PackedStateProblem packedProblem;
+    private Path workDirectory;
+    private int numFiles;
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!(problem instanceof PackedStateProblem packedProblem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        this.problem = problem;
+        this.packedProblem = packedProblem;
+        try {
+            workDirectory = directory == null ? Files.createTempDirectory("bfs") : Files.createTempDirectory(directory, "bfs");
+            return externalSearch();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deleteWorkDirectory();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Solution externalSearch() throws IOException {
+        State initialState = problem.getInitialState();
+        if (problem.isGoal(initialState))
+            return new Solution(problem, Collections.emptyList());
+        long root = packedProblem.packState(initialState);
+        List<Path> layers = new ArrayList<>();
+        layers.add(writeSorted(new long[]{root}, 1));
+        Path reached = writeSorted(new long[]{root}, 1);
+        long width = 1;
+
+        long[] chunk = new long[Math.min(chunkSize, 1024)];
+        State[] successors = new State[problem.getMaxSuccessors()];
+        while (!stopped) {
+            List<Path> runs = new ArrayList<>();
+            int size = 0;
+            try (LongFileReader layer = new LongFileReader(layers.get(layers.size() - 1))) {
+                while (layer.hasNext() && !stopped) {
+                    int numSuccessors = problem.getSuccessors(packedProblem.unpackState(layer.next()), successors);
+                    statistics.numExpandedNodes++;
+                    statistics.numGeneratedSates += numSuccessors;
+                    for (int i = 0; i < numSuccessors; i++) {
+                        long packed = packedProblem.packState(successors[i]);
+                        if (problem.isGoal(successors[i]))
+                            return createSolution(layers, packed);
+                        if (size == chunk.length) {
+                            if (size < chunkSize) {
+                                chunk = Arrays.copyOf(chunk, (int) Math.min(chunkSize, 2L * size));
+                            } else {
+                                runs.add(writeSorted(chunk, size));
+                                size = 0;
+                            }
+                        }
+                        chunk[size++] = packed;
+                    }
+                }
+            }
+            if (stopped)
+                return null;
+            if (size > 0)
+                runs.add(writeSorted(chunk, size));
+
+            while (runs.size() > MAX_RUNS_MERGED)
+                runs = mergeRuns(runs);
+            Path nextLayer = newFile();
+            Path nextReached = newFile();
+            long nextWidth = removeReached(runs, reached, nextLayer, nextReached);
+            for (Path run : runs)
+                Files.delete(run);
+            Files.delete(reached);
+            reached = nextReached;
+
+            //Both layers are on disk, this is what a search in memory would have to hold
+            statistics.maxFrontierSize = (int) Math.min(Integer.MAX_VALUE, Math.max(statistics.maxFrontierSize, width + nextWidth));
+            statistics.maxLayerWidth = (int) Math.min(Integer.MAX_VALUE, Math.max(statistics.maxLayerWidth, nextWidth));
+            if (nextWidth == 0)
+                return null;
+            statistics.numLayers++;
+            layers.add(nextLayer);
+            width = nextWidth;
+        }
+        return null;
+    }
+
+    private Path newFile() {
+        return workDirectory.resolve(Integer.toString(numFiles++));
+    }
+
+    //Sorts the values and writes them to a new file, without repetitions
+    private Path writeSorted(long[] values, int size) throws IOException {
+        Arrays.sort(values, 0, size);
+        Path file = newFile();
+        try (LongFileWriter writer = new LongFileWriter(file)) {
+            for (int i = 0; i < size; i++)
+                if (i == 0 || values[i] != values[i - 1])
+                    writer.write(values[i]);
+        }
+        return file;
+    }
+
+    //Merges the runs in groups of MAX_RUNS_MERGED, deleting them
+    private List<Path> mergeRuns(List<Path> runs) throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i += MAX_RUNS_MERGED) {
+            List<Path> group = runs.subList(i, Math.min(runs.size(), i + MAX_RUNS_MERGED));
+            Path file = newFile();
+            try (Merge merge = new Merge(group); LongFileWriter writer = new LongFileWriter(file)) {
+                while (merge.hasNext())
+                    writer.write(merge.next());
+            }
+            for (Path run : group)
+                Files.delete(run);
+            merged.add(file);
+        }
+        return merged;
+    }
+
+    /*
+     * Merges the runs, writing to nextLayer the states that aren't in reached, and writes reached
+     * with those states to nextReached. Returns the number of states of the next layer.
+     */
+    private long removeReached(List<Path> runs, Path reached, Path nextLayer, Path nextReached) throws IOException {
+        try (Merge merge = new Merge(runs);
+             LongFileReader oldStates = new LongFileReader(reached);
+             LongFileWriter layer = new LongFileWriter(nextLayer);
+             LongFileWriter allStates = new LongFileWriter(nextReached)) {
+            while (merge.hasNext()) {
+                long packed = merge.next();
+                while (oldStates.hasNext() && oldStates.peek() < packed)
+                    allStates.write(oldStates.next());
+                if (oldStates.hasNext() && oldStates.peek() == packed)
+                    continue;
+                layer.write(packed);
+                allStates.write(packed);
+            }
+            while (oldStates.hasNext())
+                allStates.write(oldStates.next());
+            return layer.getCount();
+        }
+    }
+
+    //Path from the initial state to the goal, found going back one layer at a time
+    @SuppressWarnings("unchecked")
+    private Solution createSolution(List<Path> layers, long goal) throws IOException {
+        Action[] actions = new Action[layers.size()];
+        long next = goal;
+        for (int depth = layers.size() - 1; depth >= 0; depth--) {
+            try (LongFileReader layer = new LongFileReader(layers.get(depth))) {
+                while (actions[depth] == null) {
+                    long packed = layer.next();
+                    State state = packedProblem.unpackState(packed);
+                    for (Object action : problem.getActions(state)) {
+                        if (packedProblem.packState(problem.getSuccessor(state, (Action) action)) == next) {
+                            actions[depth] = (Action) action;
+                            next = packed;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return new Solution(problem, Arrays.asList(actions));
+    }
+
+    private void deleteWorkDirectory() {
+        if (workDirectory == null)
+            return;
+        try (Stream<Path> files = Files.walk(workDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException ignored) {
+            //Only temporary files are left behind
+        }
+        workDirectory = null;
+        numFiles = 0;
+    }
+
+    //Values of several sorted files, in order and without repetitions
+    private static class Merge implements AutoCloseable {
+
+        private final List<LongFileReader> readers = new ArrayList<>();
+        private final PriorityQueue<LongFileReader> queue =
+                new PriorityQueue<>(Comparator.comparingLong(LongFileReader::peek));
+        private boolean hasLast;
+        private long last;
+
+        Merge(List<Path> files) throws IOException {
+            try {
+                for (Path file : files) {
+                    LongFileReader reader = new LongFileReader(file);
+                    readers.add(reader);
+                    if (reader.hasNext())
+                        queue.add(reader);
+                }
+                skipRepeated();
+            } catch (IOException e) {
+                try {
+                    close();
+                } catch (IOException closeError) {
+                    e.addSuppressed(closeError);
+                }
+                throw e;
+            }
+        }
+
+        boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        long next() throws IOException {
+            LongFileReader reader = queue.poll();
+            last = reader.next();
+            hasLast = true;
+            if (reader.hasNext())
+                queue.add(reader);
+            skipRepeated();
+            return last;
+        }
+
+        private void skipRepeated() throws IOException {
+            while (hasLast && !queue.isEmpty() && queue.peek().peek() == last) {
+                LongFileReader reader = queue.poll();
+                reader.next();
+                if (reader.hasNext())
+                    queue.add(reader);
+            }
+        }
+
+        @Override
+        //Closes every reader even if closing one of them fails
+        public void close() throws IOException {
+            IOException error = null;
+            for (LongFileReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    if (error == null)
+                        error = e;
+                    else
+                        error.addSuppressed(e);
+                }
+            }
+            if (error != null)
+                throw error;
+        }
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    //Successors held in memory before they are sorted and written to disk
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        this.chunkSize = chunkSize;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    //Where the files of the layers are written, the temporary directory of the system if null
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String toString() {
+        return "Breadth first search (external)";
+    }
+}
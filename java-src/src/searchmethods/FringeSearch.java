@@ -0,0 +1,103 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/*
+ * Fringe search: IDA* that doesn't start each iteration from the initial state. The nodes left out
+ * of an iteration because their f is over the limit go to the later list, in the order they were
+ * found, and the next iteration, with the smallest of those f as its limit, starts from them instead
+ * of searching again the part of the tree that was already searched.
+ *
+ * The now list is searched depth first: the successors of a node are put at its front. A cache keeps
+ * the cheapest node found for each state, so a state reached again by a path that isn't cheaper is
+ * left out, and a node in the lists whose state was later reached by a cheaper path is skipped when
+ * its turn comes. Like IDA*, with an admissible heuristic the solution is optimal.
+ */
+public class FringeSearch extends InformedSearch {
+
+    private final ArrayDeque<Node> now = new ArrayDeque<>();
+    private final ArrayDeque<Node> later = new ArrayDeque<>();
+    //Cheapest node of each state, with its h kept as f - g
+    private final HashMap<State, Node> cache = new HashMap<>();
+
+    @Override
+    protected Solution graphSearch(Problem problem) {
+        try {
+            return fringeSearch(problem);
+        } finally {
+            now.clear();
+            later.clear();
+            cache.clear();
+        }
+    }
+
+    private Solution fringeSearch(Problem problem) {
+        now.clear();
+        later.clear();
+        cache.clear();
+        State initialState = problem.getInitialState();
+        double h = heuristic.compute(initialState);
+        Node root = new Node(initialState, null, 0, h);
+        cache.put(initialState, root);
+        now.add(root);
+        double limit = h;
+
+        while (!now.isEmpty() && !stopped) {
+            double newLimit = Double.MAX_VALUE;
+            while (!now.isEmpty() && !stopped) {
+                Node n = now.poll();
+                State state = n.getState();
+                if (cache.get(state) != n)
+                    continue;
+                if (n.getF() > limit) {
+                    newLimit = Math.min(newLimit, n.getF());
+                    later.add(n);
+                    continue;
+                }
+                if (problem.isGoal(state))
+                    return new Solution(problem, n);
+                int numSuccessors = expand(problem, state);
+                //From the last to the first, so that the first successor is searched first
+                for (int i = numSuccessors - 1; i >= 0; i--) {
+                    addSuccessorToFrontier(successors[i], n);
+                    successors[i] = null;
+                }
+                computeStatistics(numSuccessors);
+            }
+            limit = newLimit;
+            now.addAll(later);
+            later.clear();
+        }
+        return null;
+    }
+
+    //Adds the successor to the front of the now list, unless its state was reached by a path that isn't more expensive
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        double g = parent.getG() + successor.getAction().getCost();
+        Node cached = cache.get(successor);
+        if (cached != null && cached.getG() <= g)
+            return;
+        double h = cached == null ? heuristic.compute(successor) : cached.getF() - cached.getG();
+        Node node = new Node(successor, parent, g, g + h);
+        cache.put(successor, node);
+        now.push(node);
+    }
+
+    @Override
+    protected void computeStatistics(int successorsSize) {
+        statistics.numExpandedNodes++;
+        statistics.numGeneratedSates += successorsSize;
+        statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, now.size() + later.size());
+    }
+
+    @Override
+    public String toString() {
+        return "Fringe search";
+    }
+}
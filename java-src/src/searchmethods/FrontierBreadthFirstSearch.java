@@ -0,0 +1,185 @@
+package searchmethods;
+
+import agent.Action;
+import agent.PackedStateProblem;
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.LongHashSet;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Frontier search: breadth first search without a closed list, for problems whose states can be
+ * packed. Only the layer being expanded, the one being built and the last numLayersKept layers are
+ * kept, so the memory used depends on the width of the layers and not on the number of states
+ * reached. With unit costs it is also a uniform cost search.
+ *
+ * Repeated states are only detected inside those layers. Where actions can't be undone (an enemy
+ * that dies can't come back) a state may be generated again after its layer was dropped; it is then
+ * searched again, which costs time but not optimality, since it is always found first at its right
+ * depth. The search gives up after maxDepth layers, as it can't tell otherwise that there is no
+ * solution when it keeps finding old states.
+ *
+ * There are no parent pointers: each node of the layers after the middle one only remembers its
+ * ancestor in that layer. Once a goal is found, the path is rebuilt by dividing it in two at that
+ * relay state and searching each half again, recursively.
+ */
+public class FrontierBreadthFirstSearch extends BreadthFirstSearch {
+
+    private int numLayersKept = 4;
+    private int maxDepth = 1000;
+    private Problem problem;
+    private PackedStateProblem packedProblem;
+    //Result of the last layered search
+    private long found;
+    private long foundRelay;
+    private int foundDepth;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Solution search(Problem problem) {
+        if (!(problem instanceof PackedStateProblem packedProblem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        this.problem = problem;
+        this.packedProblem = packedProblem;
+
+        State initialState = problem.getInitialState();
+        if (problem.isGoal(initialState))
+            return new Solution(problem, Collections.emptyList());
+        long root = packedProblem.packState(initialState);
+        if (!layeredSearch(root, 0, true, maxDepth, -1))
+            return null;
+        statistics.numLayers = foundDepth;
+
+        List<Action> path = new ArrayList<>(foundDepth);
+        if (!buildPath(root, found, foundDepth, path))
+            return null;
+        return new Solution(problem, path);
+    }
+
+    /*
+     * Breadth first search from start until a goal (or, if toGoal is false, the target state) is
+     * generated, up to maxDepth layers. Sets found, foundDepth and foundRelay, the ancestor of the
+     * found state at relayDepth, or start if relayDepth is -1. Returns false if nothing was found.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean layeredSearch(long start, long target, boolean toGoal, int maxDepth, int relayDepth) {
+        long[] layer = {start};
+        //Ancestor at relayDepth of each state of the layer, only kept from that layer on
+        long[] relays = null;
+        int width = 1;
+        //Layers kept to detect repeated states, the one being expanded is the last one
+        ArrayDeque<LongHashSet> recentLayers = new ArrayDeque<>();
+        LongHashSet startLayer = new LongHashSet(1);
+        startLayer.add(start);
+        recentLayers.add(startLayer);
+        State[] successors = new State[problem.getMaxSuccessors()];
+
+        for (int depth = 0; depth < maxDepth && width > 0 && !stopped; depth++) {
+            long[] nextLayer = new long[Math.max(16, width)];
+            long[] nextRelays = relayDepth >= 0 && depth + 1 >= relayDepth ? new long[nextLayer.length] : null;
+            LongHashSet nextSet = new LongHashSet(nextLayer.length);
+            int nextWidth = 0;
+            for (int i = 0; i < width && !stopped; i++) {
+                int numSuccessors = problem.getSuccessors(packedProblem.unpackState(layer[i]), successors);
+                statistics.numExpandedNodes++;
+                statistics.numGeneratedSates += numSuccessors;
+                for (int j = 0; j < numSuccessors; j++) {
+                    State successor = successors[j];
+                    long packed = packedProblem.packState(successor);
+                    long relay = depth + 1 == relayDepth ? packed : relays == null ? start : relays[i];
+                    if (toGoal ? problem.isGoal(successor) : packed == target) {
+                        found = packed;
+                        foundRelay = relay;
+                        foundDepth = depth + 1;
+                        return true;
+                    }
+                    if (isInLayers(packed, recentLayers) || !nextSet.add(packed))
+                        continue;
+                    if (nextWidth == nextLayer.length) {
+                        nextLayer = Arrays.copyOf(nextLayer, nextWidth * 2);
+                        if (nextRelays != null)
+                            nextRelays = Arrays.copyOf(nextRelays, nextWidth * 2);
+                    }
+                    nextLayer[nextWidth] = packed;
+                    if (nextRelays != null)
+                        nextRelays[nextWidth] = relay;
+                    nextWidth++;
+                }
+            }
+            statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, width + nextWidth);
+            statistics.maxLayerWidth = Math.max(statistics.maxLayerWidth, nextWidth);
+
+            recentLayers.addLast(nextSet);
+            if (recentLayers.size() > numLayersKept + 1)
+                recentLayers.removeFirst();
+            layer = nextLayer;
+            relays = nextRelays;
+            width = nextWidth;
+        }
+        return false;
+    }
+
+    private static boolean isInLayers(long packed, ArrayDeque<LongHashSet> layers) {
+        for (LongHashSet layer : layers)
+            if (layer.contains(packed))
+                return true;
+        return false;
+    }
+
+    /*
+     * Adds to the path the actions of a shortest path, of the given length, from one state to the
+     * other. The path is split at the state in its middle, found by searching again from the first.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean buildPath(long from, long to, int length, List<Action> path) {
+        if (length == 1) {
+            State state = packedProblem.unpackState(from);
+            for (Object action : problem.getActions(state)) {
+                if (packedProblem.packState(problem.getSuccessor(state, (Action) action)) == to) {
+                    path.add((Action) action);
+                    return true;
+                }
+            }
+            throw new IllegalStateException("No action leads to the next state of the path.");
+        }
+        int middle = length / 2;
+        if (!layeredSearch(from, to, false, length, middle))
+            return false;
+        long relay = foundRelay;
+        return buildPath(from, relay, middle, path) && buildPath(relay, to, length - middle, path);
+    }
+
+    public int getNumLayersKept() {
+        return numLayersKept;
+    }
+
+    //Layers before the one being expanded that are kept to detect repeated states
+    public void setNumLayersKept(int numLayersKept) {
+        if (numLayersKept < 0)
+            throw new IllegalArgumentException("The number of layers kept can't be negative.");
+        this.numLayersKept = numLayersKept;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1)
+            throw new IllegalArgumentException("The maximum depth must be positive.");
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "Breadth first search (frontier)";
+    }
+}
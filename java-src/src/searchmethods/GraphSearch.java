@@ -1,21 +1,22 @@
 package searchmethods;
 
-import agent.Action;
+import agent.PackedStateProblem;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
 import utils.NodeCollection;
-
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import utils.PackedStateSet;
+import utils.StateHashSet;
+import utils.StateSet;
 
 public abstract class GraphSearch<L extends NodeCollection> implements SearchMethod {
 
     protected L frontier;
-    protected Set<State> explored = new HashSet<>();
+    protected StateSet explored = new StateHashSet();
     protected Statistics statistics = new Statistics();
-    protected boolean stopped;
+    protected volatile boolean stopped;
+    //Successors of the node being expanded, the same array is used in every expansion
+    protected State[] successors = new State[0];
 
     @Override
     public Solution search(Problem problem) {
@@ -38,7 +39,7 @@ public abstract class GraphSearch<L extends NodeCollection> implements SearchMet
      */
     protected Solution graphSearch(Problem problem) {
         frontier.clear();
-        explored.clear();
+        explored = createStateSet(problem);
         frontier.add(new Node(problem.getInitialState()));
 
         while (!frontier.isEmpty() && !stopped) {
@@ -48,19 +49,28 @@ public abstract class GraphSearch<L extends NodeCollection> implements SearchMet
                 return new Solution(problem, n);
             }
             explored.add(state);
-            List<Action> actions = problem.getActions(state);
-            for (Action action : actions) {
-                State successor = problem.getSuccessor(state, action);
-
-                addSuccessorToFrontier(successor, n);
-            }
-            computeStatistics(actions.size());
+            int numSuccessors = expand(problem, state);
+            for (int i = 0; i < numSuccessors; i++)
+                addSuccessorToFrontier(successors[i], n);
+            computeStatistics(numSuccessors);
         }
         return null;
     }
 
+    //Puts the successors of the state in the successors array and returns how many there are
+    protected int expand(Problem problem, State state) {
+        if (successors.length < problem.getMaxSuccessors())
+            successors = new State[problem.getMaxSuccessors()];
+        return problem.getSuccessors(state, successors);
+    }
+
     public abstract void addSuccessorToFrontier(State successor, Node parent);
 
+    //Set used to remember the explored states: only the packed value is kept when the problem has one
+    protected StateSet createStateSet(Problem problem) {
+        return problem instanceof PackedStateProblem packedProblem ? new PackedStateSet(packedProblem) : new StateHashSet();
+    }
+
     protected void computeStatistics(int successorsSize) {
         statistics.numExpandedNodes++;
         statistics.numGeneratedSates += successorsSize;
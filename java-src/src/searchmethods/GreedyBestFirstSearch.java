@@ -13,8 +13,7 @@ public class GreedyBestFirstSearch extends InformedSearch {
             if (!explored.contains(successor))
                 frontier.add(new Node(successor, parent, g, h));
         } else if (g < frontier.getNode(successor).getG()) {
-            frontier.removeNode(successor);
-            frontier.add(new Node(successor, parent, g, h));
+            frontier.replaceNode(new Node(successor, parent, g, h));
         }
     }
 
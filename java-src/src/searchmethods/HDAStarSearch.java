@@ -0,0 +1,255 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.PriorityNodeCollection;
+
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Hash distributed A* (HDA*). Each state is owned by one of the workers, chosen by its hash, and only
+ * its owner keeps it in its open and closed lists. A worker expands the best node of its own open list
+ * and sends each successor to the inbox of its owner, a lock-free queue, so the workers never share a
+ * collection but their inboxes.
+ *
+ * Workers don't expand nodes in global f order, so a state may be reached by a cheaper path after it
+ * was expanded; it is then reopened. The first goal found isn't returned right away: it becomes the
+ * incumbent solution, nodes with an f that isn't smaller than its cost are left out, and the search
+ * ends when no worker has anything left to expand and no successor is on its way to an inbox. With an
+ * admissible heuristic the solution is optimal.
+ * Needs a problem and a heuristic that can be used from several threads at once.
+ */
+public class HDAStarSearch extends InformedSearch implements ParallelSearchMethod {
+
+    //Longest time an idle worker sleeps before looking again for work, if it isn't woken up before
+    private static final long IDLE_WAIT_NANOS = 1_000_000;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Problem problem;
+    private Worker[] workers;
+    /*
+     * Workers that are expanding nodes plus successors sent that weren't received yet. Every successor
+     * is sent by an active worker, so when this gets to 0 nothing is left to do.
+     */
+    private final AtomicLong work = new AtomicLong();
+    private volatile boolean done;
+    private volatile Node incumbent;
+    private volatile double incumbentCost;
+    private volatile Throwable error;
+
+    @Override
+    protected Solution graphSearch(Problem problem) {
+        this.problem = problem;
+        workers = new Worker[parallelism];
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = new Worker(i, problem);
+        done = false;
+        incumbent = null;
+        incumbentCost = Double.MAX_VALUE;
+        error = null;
+
+        Node root = new Node(problem.getInitialState());
+        //Every worker starts active and the initial node is on its way to its owner
+        work.set(workers.length + 1);
+        workers[owner(root.getState())].inbox.add(root);
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = workers[i].thread;
+            threads[i].start();
+        }
+        ParallelBestFirstSearch.joinAll(threads, this);
+
+        statistics.numThreads = workers.length;
+        for (Worker worker : workers) {
+            statistics.numExpandedNodes += worker.numExpandedNodes;
+            statistics.numGeneratedSates += worker.numGeneratedStates;
+            statistics.numReExpansions += worker.numReExpansions;
+            //The open lists don't all reach their biggest size at the same time, so this is an upper bound
+            statistics.maxFrontierSize += worker.maxFrontierSize;
+        }
+        workers = null;
+        if (error instanceof RuntimeException e)
+            throw e;
+        if (error instanceof Error e)
+            throw e;
+        return incumbent == null ? null : new Solution(problem, incumbent);
+    }
+
+    private int owner(State state) {
+        //Fibonacci hashing, so that the owner doesn't depend only on the lower bits of the hash
+        int hash = state.hashCode() * 0x9E3779B9;
+        return (int) (((hash & 0xFFFFFFFFL) * workers.length) >>> 32);
+    }
+
+    private synchronized void offerSolution(Node goal) {
+        if (goal.getG() < incumbentCost) {
+            incumbent = goal;
+            incumbentCost = goal.getG();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        for (Worker worker : workers)
+            LockSupport.unpark(worker.thread);
+    }
+
+    //Only called by the workers, the parent is being expanded by the worker that owns its state
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        workers[owner(parent.getState())].generate(successor, parent);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        Worker[] workers = this.workers;
+        if (workers != null)
+            for (Worker worker : workers)
+                LockSupport.unpark(worker.thread);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "HDA* search";
+    }
+
+    private class Worker implements Runnable {
+
+        private final Thread thread;
+        private final Queue<Node> inbox = new ConcurrentLinkedQueue<>();
+        private final PriorityNodeCollection open;
+        //Last node expanded for each state, with the g it had, to know when a state has to be reopened
+        private final HashMap<State, Node> closed = new HashMap<>();
+        private final State[] successors;
+        //True while the worker may be parked waiting for its inbox
+        private volatile boolean waiting;
+        private boolean active = true;
+        private int numExpandedNodes;
+        private int numGeneratedStates;
+        private int numReExpansions;
+        private int maxFrontierSize;
+
+        Worker(int id, Problem problem) {
+            thread = new Thread(this, "HDA* worker " + id);
+            thread.setDaemon(true);
+            open = createFrontier(problem);
+            successors = new State[problem.getMaxSuccessors()];
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!done && !stopped) {
+                    Node message = inbox.poll();
+                    if (message != null) {
+                        activate();
+                        receive(message);
+                        work.decrementAndGet();
+                        continue;
+                    }
+                    Node n = nextNode();
+                    if (n != null) {
+                        activate();
+                        expandNode(n);
+                        continue;
+                    }
+                    if (active) {
+                        active = false;
+                        if (work.decrementAndGet() == 0) {
+                            finish();
+                            return;
+                        }
+                    }
+                    waiting = true;
+                    if (inbox.isEmpty() && !done && !stopped)
+                        LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                    waiting = false;
+                }
+            } catch (Throwable e) {
+                error = e;
+                finish();
+            }
+        }
+
+        private void activate() {
+            if (!active) {
+                active = true;
+                work.incrementAndGet();
+            }
+        }
+
+        //Best node of the open list, unless it can't lead to a solution cheaper than the incumbent
+        private Node nextNode() {
+            Node n = open.peek();
+            if (n == null || n.getF() >= incumbentCost)
+                return null;
+            return open.poll();
+        }
+
+        private void expandNode(Node n) {
+            State state = n.getState();
+            if (problem.isGoal(state)) {
+                offerSolution(n);
+                return;
+            }
+            if (closed.put(state, n) != null)
+                numReExpansions++;
+            int numSuccessors = problem.getSuccessors(state, successors);
+            for (int i = 0; i < numSuccessors; i++) {
+                generate(successors[i], n);
+                successors[i] = null;
+            }
+            numExpandedNodes++;
+            numGeneratedStates += numSuccessors;
+        }
+
+        private void generate(State successor, Node parent) {
+            double g = parent.getG() + successor.getAction().getCost();
+            double f = g + heuristic.compute(successor);
+            if (f >= incumbentCost)
+                return;
+            Node node = new Node(successor, parent, g, f);
+            Worker owner = workers[owner(successor)];
+            if (owner == this) {
+                receive(node);
+                return;
+            }
+            work.incrementAndGet();
+            owner.inbox.add(node);
+            if (owner.waiting)
+                LockSupport.unpark(owner.thread);
+        }
+
+        //Adds the node to the open list, unless its state was already reached by a path that isn't more expensive
+        private void receive(Node node) {
+            State state = node.getState();
+            Node inOpen = open.getNode(state);
+            if (inOpen != null) {
+                if (node.getG() < inOpen.getG())
+                    open.replaceNode(node);
+                return;
+            }
+            Node expanded = closed.get(state);
+            if (expanded != null && node.getG() >= expanded.getG())
+                return;
+            open.add(node);
+            maxFrontierSize = Math.max(maxFrontierSize, open.size());
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package searchmethods;
 
-import agent.Action;
+import agent.PackedStateProblem;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
-
-import java.util.List;
+import utils.TranspositionTable;
 
 public class IDAStarSearch extends InformedSearch {
     /*
@@ -15,16 +14,29 @@ public class IDAStarSearch extends InformedSearch {
     private double limit;
     private double newLimit;
 
+    /*
+     * States searched in the current iteration, with the smallest g they were reached with, so that a
+     * state reached again through a path that isn't cheaper is not searched again. Only used when
+     * the states of the problem can be packed. A size of 0 turns it off.
+     */
+    protected int transpositionTableSize = 1 << 18;
+    protected TranspositionTable transpositionTable;
+    //The problem, if its states can be packed, for the transposition table
+    private PackedStateProblem packedProblem;
+
     @Override
     public Solution search(Problem problem) {
         statistics.reset();
         stopped = false;
         this.heuristic = problem.getHeuristic();
+        prepareTranspositionTable(problem);
         limit = heuristic.compute(problem.getInitialState());
 
         Solution solution;
         boolean stop = false;
         do {
+            if (transpositionTable != null)
+                transpositionTable.nextIteration();
             solution = graphSearch(problem);
             if(newLimit==limit)
                 stop = true;
@@ -39,19 +51,18 @@ public class IDAStarSearch extends InformedSearch {
         newLimit = Double.MAX_VALUE;
         frontier.clear();
         frontier.add(new Node(problem.getInitialState()));
+        if (transpositionTable != null)
+            transpositionTable.store(packedProblem.packState(problem.getInitialState()), 0, 0, false);
         while (!frontier.isEmpty() && !stopped) {
             Node n = frontier.poll();
             State state = n.getState();
             if (problem.isGoal(state)) {
                 return new Solution(problem, n);
             }
-            List<Action> actions = problem.getActions(state);
-            int successorsSize = actions.size();
-            for (Action action : actions) {
-                State successor = problem.getSuccessor(state, action);
-                addSuccessorToFrontier(successor, n);
-            }
-            computeStatistics(successorsSize);
+            int numSuccessors = expand(problem, state);
+            for (int i = 0; i < numSuccessors; i++)
+                addSuccessorToFrontier(successors[i], n);
+            computeStatistics(numSuccessors);
         }
         return null;
     }
@@ -60,21 +71,55 @@ public class IDAStarSearch extends InformedSearch {
     public void addSuccessorToFrontier(State successor, Node parent) {
 
         double g = parent.getG() + successor.getAction().getCost();
+        long packed = 0;
+        if (transpositionTable != null) {
+            packed = packedProblem.packState(successor);
+            int slot = transpositionTable.find(packed);
+            //Reached before in this iteration, by a path that isn't more expensive
+            if (slot >= 0 && transpositionTable.isCurrent(slot) && transpositionTable.getG(slot) <= g)
+                return;
+        }
         if (!frontier.containsState(successor)) {
             double f = g + heuristic.compute(successor);
             if (f <= limit) {
-                if (!parent.isCycle(successor)) {
+                //With a table, the ancestors were stored with a smaller g and were already left out above
+                if (transpositionTable != null || !parent.isCycle(successor)) {
                     frontier.add(new Node(successor, parent, g, f));
+                    if (transpositionTable != null)
+                        transpositionTable.store(packed, g, f, false);
                 }
             } else {
                 newLimit = Math.min(newLimit, f);
             }
         } else if (frontier.getNode(successor).getG() > g) {
-            frontier.removeNode(successor);
-            frontier.add(new Node(successor, parent, g, g + heuristic.compute(successor)));
+            double f = g + heuristic.compute(successor);
+            frontier.replaceNode(new Node(successor, parent, g, f));
+            if (transpositionTable != null)
+                transpositionTable.store(packed, g, f, false);
         }
     }
 
+    protected void prepareTranspositionTable(Problem problem) {
+        packedProblem = problem instanceof PackedStateProblem p ? p : null;
+        if (transpositionTableSize == 0 || packedProblem == null) {
+            transpositionTable = null;
+        } else if (transpositionTable == null || transpositionTable.getCapacity() < transpositionTableSize) {
+            transpositionTable = new TranspositionTable(transpositionTableSize);
+        } else {
+            transpositionTable.clear();
+        }
+    }
+
+    public int getTranspositionTableSize() {
+        return transpositionTableSize;
+    }
+
+    public void setTranspositionTableSize(int transpositionTableSize) {
+        if (transpositionTableSize < 0)
+            throw new IllegalArgumentException("The size of the transposition table can't be negative.");
+        this.transpositionTableSize = transpositionTableSize;
+    }
+
     @Override
     public String toString() {
         return "IDA* search";
@@ -0,0 +1,29 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+/*
+ * Depth first search that walks the tree on a single state, executing and undoing actions, when the
+ * problem allows it (see InPlaceSearch). Otherwise it is the usual depth first search.
+ * Like in DepthFirstSearch, a successor is left out if its state is on the current path or is
+ * waiting to be tried at any depth. The in place IDA* search only checks the path.
+ */
+public class InPlaceDepthFirstSearch extends DepthFirstSearch {
+
+    private final InPlaceSearch inPlaceSearch = new InPlaceSearch(this);
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!InPlaceSearch.supports(problem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        return inPlaceSearch.search(problem, Double.POSITIVE_INFINITY, null, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Depth first search (in place)";
+    }
+}
@@ -0,0 +1,24 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+//Limited depth first search on a single state, see InPlaceDepthFirstSearch
+public class InPlaceDepthLimitedSearch extends DepthLimitedSearch {
+
+    private final InPlaceSearch inPlaceSearch = new InPlaceSearch(this);
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!InPlaceSearch.supports(problem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        return inPlaceSearch.search(problem, limit, null, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Limited depth first search (in place)";
+    }
+}
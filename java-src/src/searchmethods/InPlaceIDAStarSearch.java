@@ -0,0 +1,41 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+/*
+ * IDA* search on a single state, see InPlaceDepthFirstSearch.
+ * Each iteration searches the successors with f up to the limit, the next limit is the smallest f
+ * that was left out. It ends when no successor was left out.
+ * The transposition table keeps, besides g, the bound backed up from the subtree of each state, which
+ * is used as a better heuristic in the following iterations.
+ */
+public class InPlaceIDAStarSearch extends IDAStarSearch {
+
+    private final InPlaceSearch inPlaceSearch = new InPlaceSearch(this);
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!InPlaceSearch.supports(problem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        heuristic = problem.getHeuristic();
+        prepareTranspositionTable(problem);
+        double limit = heuristic.compute(problem.getInitialState());
+        Solution solution;
+        do {
+            if (transpositionTable != null)
+                transpositionTable.nextIteration();
+            solution = inPlaceSearch.search(problem, Double.POSITIVE_INFINITY, heuristic, limit, transpositionTable);
+            limit = inPlaceSearch.newFLimit;
+        } while (solution == null && !stopped && limit != Double.MAX_VALUE);
+
+        return solution;
+    }
+
+    @Override
+    public String toString() {
+        return "IDA* search (in place)";
+    }
+}
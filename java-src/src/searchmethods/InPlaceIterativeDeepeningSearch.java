@@ -0,0 +1,35 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+/*
+ * Iterative deepening search on a single state, see InPlaceDepthFirstSearch.
+ * The limit stops growing when a search didn't leave out any node because of it, which means
+ * that the whole tree was searched.
+ */
+public class InPlaceIterativeDeepeningSearch extends IterativeDeepeningSearch {
+
+    private final InPlaceSearch inPlaceSearch = new InPlaceSearch(this);
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!InPlaceSearch.supports(problem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        limit = 0;
+        Solution solution;
+        do {
+            solution = inPlaceSearch.search(problem, limit, null, 0);
+            limit++;
+        } while (solution == null && !stopped && inPlaceSearch.cutoff);
+
+        return solution;
+    }
+
+    @Override
+    public String toString() {
+        return "Iterative deepening search (in place)";
+    }
+}
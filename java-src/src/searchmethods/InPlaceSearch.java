@@ -0,0 +1,262 @@
+package searchmethods;
+
+import agent.Action;
+import agent.Heuristic;
+import agent.PackedStateProblem;
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import agent.UndoableProblem;
+import utils.PathSet;
+import utils.TranspositionTable;
+
+import java.util.Arrays;
+
+/*
+ * Depth first walk of the search tree on a single state, for problems with undoable actions
+ * (UndoableProblem) and packed states (PackedStateProblem). Going down a level executes an action
+ * on the state and going back up undoes it, so nothing is cloned and the memory used is
+ * proportional to the depth.
+ * The initial state of the problem is the one used, it is back to how it was when the search ends.
+ * The search is iterative, with an explicit stack of the actions still to try at each depth, so
+ * deep searches can't overflow the thread's stack.
+ *
+ * Without a heuristic, the successors of a node are generated when it is expanded, like in
+ * DepthFirstSearch, and those whose state is on the path or waiting to be tried, at any depth, are
+ * left out. They are tried in the reverse order they were generated, so the ones waiting are kept
+ * on the same stack as the path: the one tried is at its top and becomes part of the path, and is
+ * popped when the search goes back up. Going down to one sets the state to its packed value
+ * (UndoableProblem.redoAction) instead of executing the action again, and successors at the depth
+ * limit are only checked for goals, like in IterativeDeepeningSearch.
+ *
+ * Nodes deeper than the depth limit aren't expanded and, if there is a heuristic, successors with
+ * f = g + h above the f limit aren't generated. The smallest f above the limit is kept in newFLimit.
+ * Used by the in place versions of the depth first searches.
+ *
+ * With a transposition table (IDA*), a subtree that was already searched in the same iteration from a
+ * path that wasn't more expensive isn't searched again, and the bounds backed up in earlier iterations
+ * improve the heuristic, so subtrees that can't reach the new limit are cut at their root.
+ */
+class InPlaceSearch {
+
+    private final SearchMethod searchMethod;
+    private PackedStateProblem packedProblem;
+    private UndoableProblem undoableProblem;
+    /*
+     * Actions of each depth, tried from the last to the first, the order in which DepthFirstSearch
+     * takes them out of its frontier. The ones still to try are those before nextAction[depth].
+     */
+    private Action[][] actions = new Action[0][];
+    private int[] nextAction = new int[0];
+    /*
+     * Packed states and costs of the path from the initial state to the current one. Without a
+     * heuristic, the stack of states also has, above each node of the path, its successors still to try.
+     */
+    private final PathSet pathStates = new PathSet();
+    private double[] pathCosts = new double[0];
+    /*
+     * For the subtree of each node of the path: the smallest f over the limit and the smallest depth
+     * of the path states that were left out as cycles. If that depth is smaller than the depth of the
+     * node, the result of the subtree depends on the path to it.
+     */
+    private double[] minExceeded = new double[0];
+    private int[] minCycleDepth = new int[0];
+
+    //True if the last search left out nodes because of the depth limit
+    boolean cutoff;
+    double newFLimit;
+
+    InPlaceSearch(SearchMethod searchMethod) {
+        this.searchMethod = searchMethod;
+    }
+
+    static boolean supports(Problem problem) {
+        return problem instanceof UndoableProblem && problem instanceof PackedStateProblem;
+    }
+
+    Solution search(Problem problem, double depthLimit, Heuristic heuristic, double fLimit) {
+        return search(problem, depthLimit, heuristic, fLimit, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    Solution search(Problem problem, double depthLimit, Heuristic heuristic, double fLimit, TranspositionTable table) {
+        Statistics statistics = searchMethod.getStatistics();
+        packedProblem = (PackedStateProblem) problem;
+        undoableProblem = (UndoableProblem) problem;
+        int maxActions = problem.getMaxSuccessors();
+        State state = problem.getInitialState();
+        cutoff = false;
+        newFLimit = Double.MAX_VALUE;
+        if (actions.length > 0 && actions[0].length < maxActions)
+            actions = new Action[0][];
+
+        ensureDepth(0, maxActions);
+        pathStates.clear();
+        pathStates.push(packedProblem.packState(state));
+        enter(0, 0);
+        if (problem.isGoal(state))
+            return createSolution(problem, 0);
+        expand(problem, state, 0, depthLimit, heuristic == null, statistics);
+
+        int depth = 0;
+        try {
+            while (!searchMethod.hasBeenStopped()) {
+                if (nextAction[depth] == 0) {
+                    if (depth == 0)
+                        return null;
+                    if (table != null)
+                        table.store(pathStates.get(depth), pathCosts[depth], minExceeded[depth], minCycleDepth[depth] >= depth);
+                    minExceeded[depth - 1] = Math.min(minExceeded[depth - 1], minExceeded[depth]);
+                    minCycleDepth[depth - 1] = Math.min(minCycleDepth[depth - 1], minCycleDepth[depth]);
+                    undoableProblem.undoAction(state);
+                    pathStates.pop();
+                    depth--;
+                    continue;
+                }
+
+                Action action = actions[depth][--nextAction[depth]];
+                double g = pathCosts[depth] + action.getCost();
+                long packed;
+                if (heuristic == null) {
+                    //Generated and checked when its parent was expanded, it is at the top of the stack
+                    packed = pathStates.get(pathStates.size() - 1);
+                    undoableProblem.redoAction(state, action, packed);
+                } else {
+                    if (!undoableProblem.doAction(state, action))
+                        continue;
+                    statistics.numGeneratedSates++;
+                    packed = packedProblem.packState(state);
+                    int cycleDepth = pathStates.indexOf(packed);
+                    if (cycleDepth >= 0) {
+                        minCycleDepth[depth] = Math.min(minCycleDepth[depth], cycleDepth);
+                        undoableProblem.undoAction(state);
+                        continue;
+                    }
+                    double h = heuristic.compute(state);
+                    int slot = table == null ? -1 : table.find(packed);
+                    if (slot >= 0) {
+                        double searchedG = table.getG(slot);
+                        double bound = table.getBound(slot);
+                        if (table.isCurrent(slot) && searchedG <= g) {
+                            //Transposition: its subtree was already searched with at least as much budget
+                            if (bound != Double.MAX_VALUE)
+                                exceeded(depth, bound + g - searchedG);
+                            if (!table.isReusable(slot))
+                                minCycleDepth[depth] = 0;
+                            undoableProblem.undoAction(state);
+                            continue;
+                        }
+                        if (table.isReusable(slot)) {
+                            //A subtree with no node over the limit and no goal is a dead end
+                            if (bound == Double.MAX_VALUE) {
+                                undoableProblem.undoAction(state);
+                                continue;
+                            }
+                            h = Math.max(h, bound - searchedG);
+                        }
+                    }
+                    double f = g + h;
+                    if (f > fLimit) {
+                        exceeded(depth, f);
+                        undoableProblem.undoAction(state);
+                        continue;
+                    }
+                    pathStates.push(packed);
+                }
+
+                depth++;
+                ensureDepth(depth, maxActions);
+                enter(depth, g);
+                if (problem.isGoal(state))
+                    return createSolution(problem, depth);
+                expand(problem, state, depth, depthLimit, heuristic == null, statistics);
+                //The frontier of this search is the path, or the successors still to try if they are generated
+                statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, heuristic == null ? pathStates.size() - depth - 1 : depth + 1);
+            }
+        } finally {
+            //Back to the initial state
+            for (; depth > 0; depth--)
+                undoableProblem.undoAction(state);
+        }
+        return null;
+    }
+
+    private void enter(int depth, double g) {
+        pathCosts[depth] = g;
+        minExceeded[depth] = Double.MAX_VALUE;
+        minCycleDepth[depth] = Integer.MAX_VALUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expand(Problem problem, State state, int depth, double depthLimit, boolean generate, Statistics statistics) {
+        if (depth < depthLimit) {
+            nextAction[depth] = problem.getActions(state, actions[depth]);
+            statistics.numExpandedNodes++;
+            if (generate)
+                generateSuccessors(problem, state, depth, depth + 1 >= depthLimit, statistics);
+        } else {
+            nextAction[depth] = 0;
+            cutoff = true;
+        }
+    }
+
+    /*
+     * Keeps only the actions whose successor isn't on the path or waiting to be tried, and pushes the
+     * successors to pathStates, the same ones DepthFirstSearch adds to its frontier. Successors at
+     * the depth limit aren't kept unless they are goals.
+     */
+    @SuppressWarnings("unchecked")
+    private void generateSuccessors(Problem problem, State state, int depth, boolean atLimit, Statistics statistics) {
+        Action[] depthActions = actions[depth];
+        int numActions = nextAction[depth];
+        int numKept = 0;
+        for (int i = 0; i < numActions; i++) {
+            if (!undoableProblem.doAction(state, depthActions[i]))
+                continue;
+            statistics.numGeneratedSates++;
+            long packed = packedProblem.packState(state);
+            boolean goal = atLimit && problem.isGoal(state);
+            undoableProblem.undoAction(state);
+            if (pathStates.contains(packed))
+                continue;
+            if (atLimit) {
+                //Only a goal is kept, and any goal at this depth is as good as the others
+                cutoff = true;
+                if (!goal)
+                    continue;
+            }
+            pathStates.push(packed);
+            depthActions[numKept++] = depthActions[i];
+            if (goal)
+                break;
+        }
+        nextAction[depth] = numKept;
+    }
+
+    private void exceeded(int depth, double f) {
+        minExceeded[depth] = Math.min(minExceeded[depth], f);
+        newFLimit = Math.min(newFLimit, f);
+    }
+
+    private void ensureDepth(int depth, int maxActions) {
+        if (depth < actions.length)
+            return;
+        int capacity = Math.max(depth + 1, actions.length * 2);
+        int oldCapacity = actions.length;
+        actions = Arrays.copyOf(actions, capacity);
+        for (int i = oldCapacity; i < capacity; i++)
+            actions[i] = new Action[maxActions];
+        nextAction = Arrays.copyOf(nextAction, capacity);
+        pathCosts = Arrays.copyOf(pathCosts, capacity);
+        minExceeded = Arrays.copyOf(minExceeded, capacity);
+        minCycleDepth = Arrays.copyOf(minCycleDepth, capacity);
+    }
+
+    //The action taken at each depth is the one at nextAction
+    private Solution createSolution(Problem problem, int depth) {
+        Action[] path = new Action[depth];
+        for (int i = 0; i < depth; i++)
+            path[i] = actions[i][nextAction[i]];
+        return new Solution(problem, Arrays.asList(path));
+    }
+}
@@ -3,10 +3,12 @@ package searchmethods;
 import agent.Heuristic;
 import agent.Problem;
 import agent.Solution;
+import utils.NodeBucketQueue;
 import utils.NodePriorityQueue;
+import utils.PriorityNodeCollection;
 
 
-public abstract class InformedSearch extends GraphSearch<NodePriorityQueue> {
+public abstract class InformedSearch extends GraphSearch<PriorityNodeCollection> {
 
     protected Heuristic heuristic;
 
@@ -19,6 +21,14 @@ public abstract class InformedSearch extends GraphSearch<NodePriorityQueue> {
         statistics.reset();
         stopped = false;
         this.heuristic = problem.getHeuristic();
+        frontier = createFrontier(problem);
         return graphSearch(problem);
     }
+
+    //When costs are integers f values are small integers too, so a bucket queue can be used instead of a heap
+    protected PriorityNodeCollection createFrontier(Problem problem) {
+        if (problem.hasIntegerCosts())
+            return new NodeBucketQueue(NodeBucketQueue.TieBreaking.FIFO);
+        return new NodePriorityQueue();
+    }
 }
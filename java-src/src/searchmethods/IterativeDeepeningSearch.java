@@ -1,12 +1,9 @@
 package searchmethods;
 
-import agent.Action;
 import agent.Problem;
 import agent.Solution;
 import agent.State;
 
-import java.util.List;
-
 public class IterativeDeepeningSearch extends DepthLimitedSearch {
     /*
      * We do not use the code from DepthLimitedSearch because we can optimize
@@ -32,7 +29,7 @@ public class IterativeDeepeningSearch extends DepthLimitedSearch {
             previousNumGeneratedStates = statistics.numGeneratedSates;
             solution = graphSearch(problem);
             limit++;
-        } while (solution == null && statistics.numGeneratedSates != previousNumGeneratedStates);
+        } while (solution == null && !stopped && statistics.numGeneratedSates != previousNumGeneratedStates);
 
         return solution;
     }
@@ -41,18 +38,19 @@ public class IterativeDeepeningSearch extends DepthLimitedSearch {
     protected Solution graphSearch(Problem problem) {
         frontier.clear();
         frontier.add(new Node(problem.getInitialState()));
+        preparePath(problem);
         statistics.numGeneratedSates++; //specific to this algorithm
 
         while (!frontier.isEmpty() && !stopped) {
             Node n = frontier.poll();
+            enterNode(n);
 
             int numSuccessorsSize = 0;
             if (n.getDepth() < limit) {
                 State state = n.getState();
-                List<Action> actions = problem.getActions(state);
-                numSuccessorsSize = actions.size();
-                for (Action action : actions) {
-                    State successor = problem.getSuccessor(state, action);
+                numSuccessorsSize = expand(problem, state);
+                for (int i = 0; i < numSuccessorsSize; i++) {
+                    State successor = successors[i];
                     if (n.getDepth() == limit - 1 && problem.isGoal(successor)) {
                         Node successorNode = new Node(successor, n);
                         limit++; //to make up for verifying early
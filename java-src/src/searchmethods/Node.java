@@ -9,6 +9,8 @@ public class Node implements Comparable<Node> {
     private double f;
     private Node parent;
     private int depth;
+    //Position in the NodePriorityQueue that holds this node, -1 if it isn't in one
+    private int heapIndex = -1;
 
     public Node(State state) {
         this.state = state;
@@ -23,7 +25,7 @@ public class Node implements Comparable<Node> {
         this.cost = cost;
         this.f = f;
         this.parent = parent;
-        this.depth = parent.depth + 1;
+        this.depth = parent == null ? 0 : parent.depth + 1;
     }
 
     public State getState() {
@@ -38,6 +40,11 @@ public class Node implements Comparable<Node> {
         return f;
     }
 
+    //Only for nodes that aren't in a collection ordered by f, which wouldn't see the change
+    public void setF(double f) {
+        this.f = f;
+    }
+
     public Node getParent() {
         return parent;
     }
@@ -46,6 +53,14 @@ public class Node implements Comparable<Node> {
         return depth;
     }
 
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    public void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
     @Override
     public int compareTo(Node other) {
         return (f < other.f) ? -1 : (f == other.f) ? 0 : 1;
@@ -0,0 +1,147 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Beam search that expands the nodes of each beam on a fork-join pool. The successors of each node,
+ * and their heuristic values, are computed in parallel into the slots of that node. They are then
+ * offered to the next beam in the same order the sequential search offers them. The solution and
+ * the statistics are therefore the same as those of BeamSearch, whatever the number of threads.
+ * Needs a problem and a heuristic that can be used from several threads at once. Beams too narrow
+ * to be split are expanded by the calling thread, as in BeamSearch.
+ */
+public class ParallelBeamSearch extends BeamSearch implements ParallelSearchMethod {
+
+    //Nodes of the beam expanded by a task without splitting it further
+    private static final int NODES_PER_TASK = 16;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ForkJoinPool pool;
+    //Successors of each node of the beam that were never in a beam, and their heuristic values
+    private State[][] beamSuccessors = new State[0][];
+    private double[][] beamHeuristics = new double[0][];
+    private int[] numSuccessors = new int[0];
+    private int[] numNewSuccessors = new int[0];
+
+    public ParallelBeamSearch() {
+    }
+
+    public ParallelBeamSearch(int beamSize) {
+        super(beamSize);
+    }
+
+    @Override
+    public Solution search(Problem problem) {
+        try {
+            Solution solution = super.search(problem);
+            statistics.numThreads = parallelism;
+            return solution;
+        } finally {
+            if (pool != null)
+                pool.shutdownNow();
+            pool = null;
+        }
+    }
+
+    @Override
+    protected Solution expandBeam(Problem problem, int width) {
+        if (parallelism == 1 || width <= NODES_PER_TASK)
+            return super.expandBeam(problem, width);
+
+        //Nodes after the first goal aren't expanded
+        int numToExpand = 0;
+        while (numToExpand < width && !problem.isGoal(beam[numToExpand].getState()))
+            numToExpand++;
+
+        prepareArrays(problem.getMaxSuccessors());
+        Expansion expansion = new Expansion(problem, 0, numToExpand);
+        //Created on the first beam wide enough to be split, most small searches never need it
+        if (pool == null)
+            pool = new ForkJoinPool(parallelism);
+        pool.invoke(expansion);
+
+        for (int i = 0; i < numToExpand && !stopped; i++) {
+            State[] nodeSuccessors = beamSuccessors[i];
+            for (int j = 0; j < numNewSuccessors[i]; j++) {
+                if (layerStates.add(nodeSuccessors[j]))
+                    offerSuccessor(nodeSuccessors[j], beam[i], beamHeuristics[i][j]);
+                nodeSuccessors[j] = null;
+            }
+            statistics.numExpandedNodes++;
+            statistics.numGeneratedSates += numSuccessors[i];
+        }
+        if (numToExpand < width && !stopped)
+            return new Solution(problem, beam[numToExpand]);
+        return null;
+    }
+
+    private void prepareArrays(int maxSuccessors) {
+        if (beamSuccessors.length >= beamSize && beamSuccessors[0].length >= maxSuccessors)
+            return;
+        beamSuccessors = new State[beamSize][maxSuccessors];
+        beamHeuristics = new double[beamSize][maxSuccessors];
+        numSuccessors = new int[beamSize];
+        numNewSuccessors = new int[beamSize];
+    }
+
+    //Expands the nodes of the beam from start to end, each one into its own slots
+    private class Expansion extends RecursiveAction {
+
+        private final Problem problem;
+        private final int start;
+        private final int end;
+
+        Expansion(Problem problem, int start, int end) {
+            this.problem = problem;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void compute() {
+            if (end - start > NODES_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Expansion(problem, start, middle), new Expansion(problem, middle, end));
+                return;
+            }
+            for (int i = start; i < end && !stopped; i++) {
+                State[] nodeSuccessors = beamSuccessors[i];
+                numSuccessors[i] = problem.getSuccessors(beam[i].getState(), nodeSuccessors);
+                //The explored set isn't changed while the beam is expanded, so it can be read by every task
+                int numNew = 0;
+                for (int j = 0; j < numSuccessors[i]; j++) {
+                    State successor = nodeSuccessors[j];
+                    if (!explored.contains(successor)) {
+                        nodeSuccessors[numNew] = successor;
+                        beamHeuristics[i][numNew] = heuristic.compute(successor);
+                        numNew++;
+                    }
+                }
+                Arrays.fill(nodeSuccessors, numNew, numSuccessors[i], null);
+                numNewSuccessors[i] = numNew;
+            }
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "Beam search (parallel)";
+    }
+}
@@ -0,0 +1,247 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.NodeMultiQueue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Best first search with many threads expanding nodes at the same time, sharing a relaxed priority
+ * queue (NodeMultiQueue) and concurrent maps of states. Used by the parallel versions of the best
+ * first searches, which only give how f is computed.
+ *
+ * The queue doesn't always return the best node, so a state may be reached by a cheaper path after
+ * it was expanded. Each state keeps the cheapest node generated for it: nodes that were replaced by
+ * cheaper ones are skipped when polled, and a state reached by a cheaper path is opened again. Its
+ * second expansion is counted as a re-expansion, work a sequential search wouldn't have done. Nodes
+ * know if their state was expanded through the node they replaced; a replacement racing with that
+ * expansion may go uncounted, the count is only a statistic.
+ * Workers with nothing to poll park until a node is added or the search ends.
+ * Searches that need the cheapest solution don't stop at the first goal: they stop when no node
+ * with an f smaller than the cost of the best solution found is left.
+ */
+class ParallelBestFirstSearch {
+
+    //Longest time an idle worker sleeps before looking again for work, if it isn't woken up before
+    private static final long IDLE_WAIT_NANOS = 1_000_000;
+
+    interface Evaluation {
+        double f(double g, State state);
+    }
+
+    private final GraphSearch searchMethod;
+    private Problem problem;
+    private Evaluation evaluation;
+    private boolean untilOptimal;
+    private NodeMultiQueue frontier;
+    //Cheapest node generated for each state
+    private ConcurrentHashMap<State, ParallelNode> reached;
+    private Worker[] workers;
+    //Workers that may be parked waiting for nodes
+    private final AtomicInteger numWaiting = new AtomicInteger();
+    //Nodes in the frontier plus nodes being expanded, the search ends when it gets to 0
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean done;
+    private volatile Node incumbent;
+    private volatile double incumbentCost;
+    private volatile Throwable error;
+
+    ParallelBestFirstSearch(GraphSearch searchMethod) {
+        this.searchMethod = searchMethod;
+    }
+
+    /*
+     * With untilOptimal the search goes on after a goal is found, until the solution is the cheapest
+     * one (if f never overestimates the cost of the best solution through a node), otherwise the
+     * first goal found is returned.
+     */
+    Solution search(Problem problem, int numThreads, Evaluation evaluation, boolean untilOptimal) {
+        this.problem = problem;
+        this.evaluation = evaluation;
+        this.untilOptimal = untilOptimal;
+        frontier = new NodeMultiQueue(numThreads);
+        reached = new ConcurrentHashMap<>(1024);
+        numWaiting.set(0);
+        done = false;
+        incumbent = null;
+        incumbentCost = Double.MAX_VALUE;
+        error = null;
+
+        ParallelNode root = new ParallelNode(problem.getInitialState(), null, 0, 0);
+        reached.put(root.getState(), root);
+        pending.set(1);
+        frontier.add(root);
+
+        workers = new Worker[numThreads];
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            workers[i] = new Worker();
+            threads[i] = new Thread(workers[i], searchMethod + " " + i);
+            threads[i].setDaemon(true);
+            workers[i].thread = threads[i];
+        }
+        for (Thread thread : threads)
+            thread.start();
+        joinAll(threads, searchMethod);
+
+        Statistics statistics = searchMethod.getStatistics();
+        statistics.numThreads = numThreads;
+        for (Worker worker : workers) {
+            statistics.numExpandedNodes += worker.numExpandedNodes;
+            statistics.numGeneratedSates += worker.numGeneratedStates;
+            statistics.numReExpansions += worker.numReExpansions;
+            statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, worker.maxFrontierSize);
+        }
+        statistics.numContendedAccesses = frontier.getNumContendedAccesses();
+        frontier = null;
+        reached = null;
+        workers = null;
+        if (error instanceof RuntimeException e)
+            throw e;
+        if (error instanceof Error e)
+            throw e;
+        return incumbent == null ? null : new Solution(problem, incumbent);
+    }
+
+    //Waits for the threads to end, stopping the search if the calling thread is interrupted
+    static void joinAll(Thread[] threads, SearchMethod searchMethod) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    searchMethod.stop();
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private synchronized void offerSolution(Node goal) {
+        if (goal.getG() < incumbentCost) {
+            incumbent = goal;
+            incumbentCost = goal.getG();
+        }
+        if (!untilOptimal) {
+            done = true;
+            wakeAll();
+        }
+    }
+
+    private void wakeAll() {
+        for (Worker worker : workers)
+            LockSupport.unpark(worker.thread);
+    }
+
+    //Wakes up a parked worker, if there is one, to poll a node that was just added
+    private void wakeOne() {
+        if (numWaiting.get() == 0)
+            return;
+        for (Worker worker : workers) {
+            if (worker.waiting) {
+                LockSupport.unpark(worker.thread);
+                return;
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private final State[] successors = new State[problem.getMaxSuccessors()];
+        private Thread thread;
+        //True while the worker may be parked waiting for nodes
+        private volatile boolean waiting;
+        private int numExpandedNodes;
+        private int numGeneratedStates;
+        private int numReExpansions;
+        private int maxFrontierSize;
+
+        @Override
+        public void run() {
+            try {
+                while (!done && !searchMethod.hasBeenStopped()) {
+                    ParallelNode n = (ParallelNode) frontier.poll();
+                    if (n == null) {
+                        if (pending.get() == 0)
+                            break;
+                        //Other threads are expanding nodes that may add new ones
+                        waiting = true;
+                        numWaiting.incrementAndGet();
+                        if (frontier.size() == 0 && pending.get() > 0 && !done && !searchMethod.hasBeenStopped())
+                            LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                        numWaiting.decrementAndGet();
+                        waiting = false;
+                        continue;
+                    }
+                    try {
+                        process(n);
+                    } finally {
+                        if (pending.decrementAndGet() == 0)
+                            wakeAll();
+                    }
+                }
+            } catch (Throwable e) {
+                error = e;
+                done = true;
+                wakeAll();
+            }
+        }
+
+        private void process(ParallelNode n) {
+            State state = n.getState();
+            //Replaced by a cheaper node, or can't lead to a cheaper solution
+            if (reached.get(state) != n || (untilOptimal && n.getF() >= incumbentCost))
+                return;
+            if (problem.isGoal(state)) {
+                offerSolution(n);
+                return;
+            }
+            if (n.stateExpanded)
+                numReExpansions++;
+            n.stateExpanded = true;
+            int numSuccessors = problem.getSuccessors(state, successors);
+            for (int i = 0; i < numSuccessors; i++) {
+                State successor = successors[i];
+                successors[i] = null;
+                double g = n.getG() + successor.getAction().getCost();
+                double f = evaluation.f(g, successor);
+                if (untilOptimal && f >= incumbentCost)
+                    continue;
+                ParallelNode node = new ParallelNode(successor, n, g, f);
+                if (reached.merge(successor, node, ParallelBestFirstSearch::cheaper) == node) {
+                    pending.incrementAndGet();
+                    frontier.add(node);
+                    wakeOne();
+                }
+            }
+            numExpandedNodes++;
+            numGeneratedStates += numSuccessors;
+            maxFrontierSize = Math.max(maxFrontierSize, frontier.size());
+        }
+    }
+
+    private static ParallelNode cheaper(ParallelNode old, ParallelNode candidate) {
+        if (candidate.getG() >= old.getG())
+            return old;
+        candidate.stateExpanded = old.stateExpanded;
+        return candidate;
+    }
+
+    private static class ParallelNode extends Node {
+
+        //True once a node of the same state, this one or one it replaced, was expanded
+        private volatile boolean stateExpanded;
+
+        ParallelNode(State state, Node parent, double g, double f) {
+            super(state, parent, g, f);
+        }
+    }
+}
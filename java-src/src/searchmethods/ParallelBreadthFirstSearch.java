@@ -0,0 +1,241 @@
+package searchmethods;
+
+import agent.Action;
+import agent.PackedStateProblem;
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.StripedLongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Breadth first search that expands each layer (all the states at the same depth) in parallel, for
+ * problems whose states can be packed. A layer is an array of packed states, with the position in
+ * the previous layer of the parent of each one. The layer is split in chunks, expanded on a
+ * fork-join pool, and each chunk writes the new states it finds to its own buffer; the buffers are
+ * then joined, in chunk order, into the next layer. Repeated states are found with a lock-striped
+ * set of the packed states seen, so each state is in one layer only.
+ * Goals are checked when they are generated, and the first one found ends the search. Its path is
+ * rebuilt from the parents, matching each packed state to the action that leads to it.
+ * Problems without packed states are searched by BreadthFirstSearch.
+ */
+public class ParallelBreadthFirstSearch extends BreadthFirstSearch implements ParallelSearchMethod {
+
+    private static final int STATES_PER_CHUNK = 256;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private Problem problem;
+    private PackedStateProblem packedProblem;
+    private ForkJoinPool pool;
+    private StripedLongHashSet visited;
+    //Packed states of each layer and position of their parents in the previous one
+    private final List<long[]> layers = new ArrayList<>();
+    private final List<int[]> parents = new ArrayList<>();
+    //Set by the first chunk that finds a goal
+    private volatile Chunk goalChunk;
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!(problem instanceof PackedStateProblem packedProblem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        statistics.numThreads = parallelism;
+        this.problem = problem;
+        this.packedProblem = packedProblem;
+        visited = new StripedLongHashSet(4 * parallelism);
+        goalChunk = null;
+        try {
+            return graphSearch(problem);
+        } finally {
+            statistics.numContendedAccesses = visited.getNumContendedAccesses();
+            if (pool != null)
+                pool.shutdownNow();
+            pool = null;
+            visited = null;
+            layers.clear();
+            parents.clear();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Solution graphSearch(Problem problem) {
+        State initialState = problem.getInitialState();
+        if (problem.isGoal(initialState))
+            return new Solution(problem, Collections.emptyList());
+        long root = packedProblem.packState(initialState);
+        visited.add(root);
+        layers.add(new long[]{root});
+        parents.add(new int[]{-1});
+
+        while (!stopped) {
+            long[] layer = layers.get(layers.size() - 1);
+            int numChunks = (layer.length + STATES_PER_CHUNK - 1) / STATES_PER_CHUNK;
+            Chunk[] chunks = new Chunk[numChunks];
+            for (int i = 0; i < numChunks; i++)
+                chunks[i] = new Chunk(layer, i * STATES_PER_CHUNK, Math.min(layer.length, (i + 1) * STATES_PER_CHUNK));
+            Expansion expansion = new Expansion(chunks, 0, numChunks);
+            if (numChunks == 1 || parallelism == 1) {
+                expansion.compute();
+            } else {
+                //Created on the first layer wide enough to be split, most small searches never need it
+                if (pool == null)
+                    pool = new ForkJoinPool(parallelism);
+                pool.invoke(expansion);
+            }
+
+            int size = 0;
+            for (Chunk chunk : chunks) {
+                statistics.numExpandedNodes += chunk.numExpandedNodes;
+                statistics.numGeneratedSates += chunk.numGeneratedStates;
+                size += chunk.size;
+            }
+            //The layer being expanded and the one being built
+            statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, layer.length + size);
+            if (goalChunk != null)
+                return createSolution(goalChunk);
+            if (size == 0 || stopped)
+                return null;
+
+            long[] nextLayer = new long[size];
+            int[] nextParents = new int[size];
+            int position = 0;
+            for (Chunk chunk : chunks) {
+                System.arraycopy(chunk.states, 0, nextLayer, position, chunk.size);
+                System.arraycopy(chunk.parents, 0, nextParents, position, chunk.size);
+                position += chunk.size;
+            }
+            layers.add(nextLayer);
+            parents.add(nextParents);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Solution createSolution(Chunk chunk) {
+        //Packed states of the path, from the goal back to the initial state
+        int depth = layers.size();
+        long[] path = new long[depth + 1];
+        path[depth] = chunk.goal;
+        int index = chunk.goalParent;
+        for (int d = depth - 1; d >= 0; d--) {
+            path[d] = layers.get(d)[index];
+            index = parents.get(d)[index];
+        }
+
+        List<Action> actions = new ArrayList<>(depth);
+        for (int d = 0; d < depth; d++) {
+            State state = packedProblem.unpackState(path[d]);
+            for (Object action : problem.getActions(state)) {
+                State successor = problem.getSuccessor(state, (Action) action);
+                if (packedProblem.packState(successor) == path[d + 1]) {
+                    actions.add((Action) action);
+                    break;
+                }
+            }
+        }
+        return new Solution(problem, actions);
+    }
+
+    //States of a layer from start to end and the new states found expanding them
+    private class Chunk {
+
+        private final long[] layer;
+        private final int start;
+        private final int end;
+        private long[] states = new long[16];
+        private int[] parents = new int[16];
+        private int size;
+        private int numExpandedNodes;
+        private int numGeneratedStates;
+        private long goal;
+        private int goalParent;
+
+        Chunk(long[] layer, int start, int end) {
+            this.layer = layer;
+            this.start = start;
+            this.end = end;
+        }
+
+        @SuppressWarnings("unchecked")
+        void expand() {
+            State[] successors = new State[problem.getMaxSuccessors()];
+            for (int i = start; i < end && goalChunk == null && !stopped; i++) {
+                int numSuccessors = problem.getSuccessors(packedProblem.unpackState(layer[i]), successors);
+                numExpandedNodes++;
+                numGeneratedStates += numSuccessors;
+                for (int j = 0; j < numSuccessors; j++) {
+                    State successor = successors[j];
+                    long packed = packedProblem.packState(successor);
+                    if (!visited.add(packed))
+                        continue;
+                    if (problem.isGoal(successor)) {
+                        goal = packed;
+                        goalParent = i;
+                        synchronized (ParallelBreadthFirstSearch.this) {
+                            if (goalChunk == null)
+                                goalChunk = this;
+                        }
+                        return;
+                    }
+                    add(packed, i);
+                }
+            }
+        }
+
+        private void add(long packed, int parent) {
+            if (size == states.length) {
+                states = Arrays.copyOf(states, size * 2);
+                parents = Arrays.copyOf(parents, size * 2);
+            }
+            states[size] = packed;
+            parents[size] = parent;
+            size++;
+        }
+    }
+
+    private static class Expansion extends RecursiveAction {
+
+        private final Chunk[] chunks;
+        private final int start;
+        private final int end;
+
+        Expansion(Chunk[] chunks, int start, int end) {
+            this.chunks = chunks;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new Expansion(chunks, start, middle), new Expansion(chunks, middle, end));
+            } else if (start < end) {
+                chunks[start].expand();
+            }
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "Breadth first search (parallel)";
+    }
+}
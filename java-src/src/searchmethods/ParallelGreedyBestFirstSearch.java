@@ -0,0 +1,35 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+//Greedy best first search with many threads sharing the frontier (see ParallelBestFirstSearch). As the
+//sequential search, it returns the first goal found.
+public class ParallelGreedyBestFirstSearch extends GreedyBestFirstSearch implements ParallelSearchMethod {
+
+    private final ParallelBestFirstSearch parallelSearch = new ParallelBestFirstSearch(this);
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public Solution search(Problem problem) {
+        statistics.reset();
+        stopped = false;
+        this.heuristic = problem.getHeuristic();
+        return parallelSearch.search(problem, parallelism, (g, state) -> heuristic.compute(state), false);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "Greedy best first search (parallel)";
+    }
+}
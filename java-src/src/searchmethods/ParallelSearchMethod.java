@@ -0,0 +1,9 @@
+package searchmethods;
+
+//Search methods that run on more than one thread, parallelism is how many
+public interface ParallelSearchMethod extends SearchMethod {
+
+    int getParallelism();
+
+    void setParallelism(int parallelism);
+}
@@ -0,0 +1,34 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+
+//Uniform cost search with many threads sharing the frontier (see ParallelBestFirstSearch). It only stops
+//when no cheaper solution can be left.
+public class ParallelUniformCostSearch extends UniformCostSearch implements ParallelSearchMethod {
+
+    private final ParallelBestFirstSearch parallelSearch = new ParallelBestFirstSearch(this);
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public Solution search(Problem problem) {
+        statistics.reset();
+        stopped = false;
+        return parallelSearch.search(problem, parallelism, (g, state) -> g, true);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("The parallelism must be positive.");
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return "Uniform cost search (parallel)";
+    }
+}
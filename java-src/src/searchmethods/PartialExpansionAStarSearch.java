@@ -0,0 +1,116 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+
+import java.util.Arrays;
+
+/*
+ * Partial expansion A* (PEA*). A node is put in the frontier with a stored f, at first its own f.
+ * When it is taken out, only the successors with an f not above the stored f are added to the
+ * frontier; the node goes back to it with the smallest f of the others as its new stored f, and is
+ * only explored when no successor is left out. Successors that A* would add but never expand, because
+ * their f is above the cost of the solution, never get to the frontier.
+ *
+ * Taking a node out again generates its successors again, but the heuristic isn't computed again:
+ * the values of the first time are kept in the node, one per successor. The heuristic is computed
+ * only for successors that weren't explored and aren't in the frontier, which already has it.
+ */
+public class PartialExpansionAStarSearch extends AStarSearch {
+
+    //Position of the successor being added among those of its parent, to find its stored heuristic
+    private int successorIndex;
+    //Smallest f of the successors left out by the current expansion
+    private double nextF;
+
+    @Override
+    protected Solution graphSearch(Problem problem) {
+        frontier.clear();
+        explored = createStateSet(problem);
+        State initialState = problem.getInitialState();
+        double h = heuristic.compute(initialState);
+        frontier.add(new PartialNode(initialState, null, 0, h, h));
+
+        while (!frontier.isEmpty() && !stopped) {
+            PartialNode n = (PartialNode) frontier.poll();
+            State state = n.getState();
+            if (problem.isGoal(state))
+                return new Solution(problem, n);
+            int numSuccessors = expand(problem, state);
+            if (n.successorH == null) {
+                n.successorH = new double[numSuccessors];
+                Arrays.fill(n.successorH, Double.NaN);
+            }
+            nextF = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < numSuccessors; i++) {
+                successorIndex = i;
+                addSuccessorToFrontier(successors[i], n);
+                successors[i] = null;
+            }
+            if (nextF == Double.POSITIVE_INFINITY)
+                explored.add(state);
+            else
+                frontier.add(new PartialNode(n, nextF));
+            computeStatistics(numSuccessors);
+        }
+        return null;
+    }
+
+    /*
+     * Adds the successor to the frontier if its f isn't above the stored f of the parent and it wasn't
+     * added by an earlier expansion of it, otherwise keeps its f if it is the smallest left out.
+     */
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        if (explored.contains(successor))
+            return;
+        PartialNode n = (PartialNode) parent;
+        double g = n.getG() + successor.getAction().getCost();
+        PartialNode inFrontier = (PartialNode) frontier.getNode(successor);
+        double h = n.successorH[successorIndex];
+        if (Double.isNaN(h)) {
+            h = inFrontier == null ? heuristic.compute(successor) : inFrontier.h;
+            n.successorH[successorIndex] = h;
+        }
+        double f = g + h;
+        if (f > n.getF()) {
+            nextF = Math.min(nextF, f);
+            return;
+        }
+        if (f <= n.expandedF)
+            return;
+        if (inFrontier == null)
+            frontier.add(new PartialNode(successor, n, g, f, h));
+        else if (g < inFrontier.getG())
+            frontier.replaceNode(new PartialNode(successor, n, g, f, h));
+    }
+
+    @Override
+    public String toString() {
+        return "Partial expansion A* search";
+    }
+
+    private static class PartialNode extends Node {
+
+        private final double h;
+        //Stored f of the last expansion, the successors with an f up to it are already in the frontier
+        private final double expandedF;
+        //Heuristic of each successor, NaN if it wasn't needed yet
+        private double[] successorH;
+
+        PartialNode(State state, Node parent, double g, double f, double h) {
+            super(state, parent, g, f);
+            this.h = h;
+            expandedF = Double.NEGATIVE_INFINITY;
+        }
+
+        //The node going back to the frontier, with the next f to expand it with
+        PartialNode(PartialNode n, double f) {
+            super(n.getState(), n.getParent(), n.getG(), f);
+            h = n.h;
+            expandedF = n.getF();
+            successorH = n.successorH;
+        }
+    }
+}
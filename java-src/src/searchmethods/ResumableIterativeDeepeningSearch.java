@@ -0,0 +1,266 @@
+package searchmethods;
+
+import agent.Action;
+import agent.PackedStateProblem;
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+import utils.LongHashSet;
+import utils.PathSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Iterative deepening search that doesn't go back to the initial state on each new limit. The leaves
+ * cut off at the last limit are kept, as packed states with the position of their parent in the same
+ * record, and the next iteration only expands them, so each level of the tree is generated once.
+ * Leaves with the same state are kept once, their subtrees would be the same.
+ *
+ * The record keeps at most maxRecordedNodes nodes. When the leaves of a new limit don't fit, the
+ * record stays with the last leaves that did, and from then on each iteration is a depth limited
+ * search from each of those leaves, so only the levels above them are never searched again.
+ * Problems without packed states are searched by IterativeDeepeningSearch.
+ */
+public class ResumableIterativeDeepeningSearch extends IterativeDeepeningSearch {
+
+    private int maxRecordedNodes = 1 << 20;
+    private Problem problem;
+    private PackedStateProblem packedProblem;
+    //Packed state and position of the parent of each node of the record, the root is the first one
+    private long[] recordStates = new long[0];
+    private int[] recordParents = new int[0];
+    private int recordSize;
+    //Positions in the record of the leaves of the deepest recorded level
+    private int[] leaves;
+    private int numLeaves;
+    private int leavesDepth;
+    //Set by expandLeaves if the new leaves didn't fit in the record
+    private boolean recordFull;
+    //True if the last iteration generated a node at the depth limit
+    private boolean lastIterationCutOff;
+    //Path of the depth limited searches started from a leaf
+    private final PathSet leafPath = new PathSet();
+
+    @Override
+    public Solution search(Problem problem) {
+        if (!(problem instanceof PackedStateProblem packedProblem))
+            return super.search(problem);
+        statistics.reset();
+        stopped = false;
+        this.problem = problem;
+        this.packedProblem = packedProblem;
+        try {
+            return resumableSearch();
+        } finally {
+            recordStates = new long[0];
+            recordParents = new int[0];
+            leaves = null;
+            leafPath.clear();
+        }
+    }
+
+    private Solution resumableSearch() {
+        State initialState = problem.getInitialState();
+        limit = 0;
+        if (problem.isGoal(initialState))
+            return new Solution(problem, Collections.emptyList());
+        recordSize = 0;
+        record(packedProblem.packState(initialState), -1);
+        leaves = new int[]{0};
+        numLeaves = 1;
+        leavesDepth = 0;
+        boolean recording = true;
+
+        while (!stopped) {
+            limit++;
+            if (recording) {
+                int firstRecorded = recordSize;
+                Solution solution = expandLeaves();
+                if (solution != null || stopped)
+                    return solution;
+                if (recordFull) {
+                    //Keep the leaves of the previous limit, the iteration went through all the new ones
+                    recordSize = firstRecorded;
+                    recording = false;
+                    continue;
+                }
+                if (numLeaves == 0)
+                    return null;
+                leavesDepth = (int) limit;
+            } else {
+                Solution solution = searchFromLeaves();
+                if (solution != null || stopped)
+                    return solution;
+                if (!lastIterationCutOff)
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    /*
+     * Expands each leaf, its successors that aren't on its path are the new leaves. If they don't
+     * fit in the record, recordFull is set and the rest of the leaves are only checked for
+     * successors that are goals.
+     */
+    @SuppressWarnings("unchecked")
+    private Solution expandLeaves() {
+        int[] newLeaves = new int[Math.max(16, numLeaves)];
+        int numNewLeaves = 0;
+        LongHashSet newStates = new LongHashSet(newLeaves.length);
+        recordFull = false;
+        lastIterationCutOff = false;
+        for (int i = 0; i < numLeaves && !stopped; i++) {
+            int leaf = leaves[i];
+            int numSuccessors = expand(problem, packedProblem.unpackState(recordStates[leaf]));
+            statistics.numExpandedNodes++;
+            statistics.numGeneratedSates += numSuccessors;
+            for (int j = 0; j < numSuccessors; j++) {
+                State successor = successors[j];
+                long packed = packedProblem.packState(successor);
+                if (isOnRecordedPath(packed, leaf))
+                    continue;
+                lastIterationCutOff = true;
+                if (problem.isGoal(successor))
+                    return createSolution(leaf, Collections.singletonList(successor.getAction()));
+                if (recordFull || !newStates.add(packed))
+                    continue;
+                if (recordSize == maxRecordedNodes) {
+                    recordFull = true;
+                    continue;
+                }
+                if (numNewLeaves == newLeaves.length)
+                    newLeaves = Arrays.copyOf(newLeaves, numNewLeaves * 2);
+                newLeaves[numNewLeaves++] = record(packed, leaf);
+            }
+            statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, numLeaves - i - 1 + numNewLeaves);
+        }
+        if (recordFull)
+            return null;
+        leaves = newLeaves;
+        numLeaves = numNewLeaves;
+        return null;
+    }
+
+    //Depth limited search from each leaf, down to the limit
+    private Solution searchFromLeaves() {
+        lastIterationCutOff = false;
+        int depthLeft = (int) limit - leavesDepth;
+        for (int i = 0; i < numLeaves && !stopped; i++) {
+            Solution solution = searchFromLeaf(leaves[i], depthLeft);
+            if (solution != null)
+                return solution;
+        }
+        return null;
+    }
+
+    //Like IterativeDeepeningSearch, only the nodes at the limit are checked for goals
+    private Solution searchFromLeaf(int leaf, int depthLeft) {
+        leafPath.clear();
+        int[] ancestors = pathTo(leaf);
+        for (int ancestor : ancestors)
+            leafPath.push(recordStates[ancestor]);
+        int base = ancestors.length - 1;
+
+        frontier.clear();
+        frontier.add(new Node(packedProblem.unpackState(recordStates[leaf])));
+        while (!frontier.isEmpty() && !stopped) {
+            Node n = frontier.poll();
+            leafPath.truncate(base + n.getDepth());
+            leafPath.push(packedProblem.packState(n.getState()));
+            int numSuccessors = 0;
+            if (n.getDepth() < depthLeft) {
+                numSuccessors = expand(problem, n.getState());
+                for (int i = 0; i < numSuccessors; i++) {
+                    State successor = successors[i];
+                    if (leafPath.contains(packedProblem.packState(successor)))
+                        continue;
+                    if (n.getDepth() == depthLeft - 1) {
+                        //At the limit, nothing is left to do with it but the goal test
+                        lastIterationCutOff = true;
+                        if (problem.isGoal(successor))
+                            return createSolution(leaf, actionsTo(new Node(successor, n)));
+                    } else if (!frontier.containsState(successor)) {
+                        frontier.addFirst(new Node(successor, n));
+                    }
+                }
+            }
+            computeStatistics(numSuccessors);
+        }
+        return null;
+    }
+
+    private int record(long packed, int parent) {
+        if (recordSize == recordStates.length) {
+            int capacity = (int) Math.min(maxRecordedNodes, Math.max(16, 2L * recordSize));
+            recordStates = Arrays.copyOf(recordStates, capacity);
+            recordParents = Arrays.copyOf(recordParents, capacity);
+        }
+        recordStates[recordSize] = packed;
+        recordParents[recordSize] = parent;
+        return recordSize++;
+    }
+
+    private boolean isOnRecordedPath(long packed, int node) {
+        for (; node >= 0; node = recordParents[node])
+            if (recordStates[node] == packed)
+                return true;
+        return false;
+    }
+
+    //Positions in the record of the nodes from the root to the given one
+    private int[] pathTo(int node) {
+        int depth = 0;
+        for (int n = recordParents[node]; n >= 0; n = recordParents[n])
+            depth++;
+        int[] path = new int[depth + 1];
+        for (int n = node; n >= 0; n = recordParents[n])
+            path[depth--] = n;
+        return path;
+    }
+
+    //Actions from the root of a search from a leaf to the node
+    private static List<Action> actionsTo(Node node) {
+        List<Action> actions = new ArrayList<>();
+        for (; node.getParent() != null; node = node.getParent())
+            actions.add(node.getState().getAction());
+        Collections.reverse(actions);
+        return actions;
+    }
+
+    //Actions to the leaf, found by matching each recorded state to the action that leads to it, and then the given ones
+    @SuppressWarnings("unchecked")
+    private Solution createSolution(int leaf, List<Action> fromLeaf) {
+        int[] path = pathTo(leaf);
+        List<Action> actions = new ArrayList<>(path.length - 1 + fromLeaf.size());
+        for (int i = 0; i < path.length - 1; i++) {
+            State state = packedProblem.unpackState(recordStates[path[i]]);
+            for (Object action : problem.getActions(state)) {
+                if (packedProblem.packState(problem.getSuccessor(state, (Action) action)) == recordStates[path[i + 1]]) {
+                    actions.add((Action) action);
+                    break;
+                }
+            }
+        }
+        actions.addAll(fromLeaf);
+        return new Solution(problem, actions);
+    }
+
+    public int getMaxRecordedNodes() {
+        return maxRecordedNodes;
+    }
+
+    public void setMaxRecordedNodes(int maxRecordedNodes) {
+        if (maxRecordedNodes < 1)
+            throw new IllegalArgumentException("The record must have room for at least the initial state.");
+        this.maxRecordedNodes = maxRecordedNodes;
+    }
+
+    @Override
+    public String toString() {
+        return "Iterative deepening search (resumable)";
+    }
+}
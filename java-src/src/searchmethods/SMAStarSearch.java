@@ -0,0 +1,178 @@
+package searchmethods;
+
+import agent.Problem;
+import agent.Solution;
+import agent.State;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+/*
+ * Simplified memory-bounded A* (SMA*): A* on the search tree that never keeps more than maxNodes
+ * nodes. When a successor doesn't fit, the worst leaf (highest f, and the shallowest of those) is
+ * dropped and its f is remembered by its parent; a parent whose children were all dropped becomes a
+ * leaf again, with the smallest f of those children, and is expanded again if it is ever the best.
+ * Leaves are expanded best f first, the deepest of those first, so the best leaf is never the one
+ * dropped.
+ *
+ * There is no explored set: a successor is left out only if its state is in one of the nodes in
+ * memory, reached by a path that isn't more expensive. Once that node is dropped the state can be
+ * generated again. A node as deep as the budget allows that isn't a goal can't lead to a solution
+ * that fits, its f is infinite. With an admissible heuristic and room for the tree A* would build,
+ * the solution is optimal; with less room a more expensive one, or none, may be found.
+ */
+public class SMAStarSearch extends InformedSearch {
+
+    //Best leaf first: lowest f, then deepest, then the oldest
+    private static final Comparator<MemoryNode> ORDER = Comparator.comparingDouble(MemoryNode::getF)
+            .thenComparing(Comparator.comparingInt(MemoryNode::getDepth).reversed())
+            .thenComparingLong(n -> n.id);
+
+    private int maxNodes = 1_000_000;
+    private Problem problem;
+    private final TreeSet<MemoryNode> leaves = new TreeSet<>(ORDER);
+    //Cheapest node in memory of each state
+    private final HashMap<State, MemoryNode> nodes = new HashMap<>();
+    private int numNodes;
+    private long nextId;
+    //Not a leaf while its children are being added, even if none of them is left
+    private MemoryNode expanding;
+
+    @Override
+    public Solution search(Problem problem) {
+        statistics.reset();
+        stopped = false;
+        this.heuristic = problem.getHeuristic();
+        this.problem = problem;
+        try {
+            return memoryBoundedSearch(problem);
+        } finally {
+            leaves.clear();
+            nodes.clear();
+            expanding = null;
+        }
+    }
+
+    private Solution memoryBoundedSearch(Problem problem) {
+        leaves.clear();
+        nodes.clear();
+        nextId = 0;
+        State initialState = problem.getInitialState();
+        MemoryNode root = new MemoryNode(initialState, null, 0, heuristic.compute(initialState));
+        leaves.add(root);
+        nodes.put(root.getState(), root);
+        numNodes = 1;
+
+        while (!leaves.isEmpty() && !stopped) {
+            MemoryNode best = leaves.pollFirst();
+            if (best.getF() == Double.POSITIVE_INFINITY)
+                return null;
+            State state = best.getState();
+            if (problem.isGoal(state))
+                return new Solution(problem, best);
+
+            int numSuccessors = expand(problem, state);
+            expanding = best;
+            best.forgottenF = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < numSuccessors; i++) {
+                addSuccessorToFrontier(successors[i], best);
+                successors[i] = null;
+            }
+            expanding = null;
+            if (best.numChildren == 0) {
+                //Dead end, or none of its successors fits
+                best.setF(best.forgottenF);
+                leaves.add(best);
+            }
+            computeStatistics(numSuccessors);
+        }
+        return null;
+    }
+
+    //Adds the successor to the tree in memory as a leaf, unless a node of its state isn't more expensive
+    @Override
+    public void addSuccessorToFrontier(State successor, Node parent) {
+        MemoryNode node = (MemoryNode) parent;
+        double g = node.getG() + successor.getAction().getCost();
+        MemoryNode inMemory = nodes.get(successor);
+        if (inMemory != null) {
+            if (inMemory.getG() <= g)
+                return;
+            if (leaves.contains(inMemory))
+                forget(inMemory);
+        }
+        //Pathmax: a child can't look better than its parent
+        double f = Math.max(node.getF(), g + heuristic.compute(successor));
+        if (node.getDepth() + 2 >= maxNodes && !problem.isGoal(successor))
+            f = Double.POSITIVE_INFINITY;
+        addChild(new MemoryNode(successor, node, g, f));
+    }
+
+    private void addChild(MemoryNode child) {
+        MemoryNode parent = (MemoryNode) child.getParent();
+        while (numNodes >= maxNodes) {
+            MemoryNode worst = leaves.isEmpty() ? null : leaves.last();
+            if (worst == null || ORDER.compare(worst, child) < 0) {
+                //Every leaf is better than the child, so it is the one left out
+                parent.forgottenF = Math.min(parent.forgottenF, child.getF());
+                statistics.numForgottenNodes++;
+                return;
+            }
+            forget(worst);
+        }
+        parent.numChildren++;
+        numNodes++;
+        leaves.add(child);
+        nodes.put(child.getState(), child);
+    }
+
+    //Drops a leaf, its parent remembers its f and becomes a leaf itself if it has no children left
+    private void forget(MemoryNode leaf) {
+        leaves.remove(leaf);
+        nodes.remove(leaf.getState(), leaf);
+        numNodes--;
+        statistics.numForgottenNodes++;
+        MemoryNode parent = (MemoryNode) leaf.getParent();
+        parent.forgottenF = Math.min(parent.forgottenF, leaf.getF());
+        if (--parent.numChildren == 0 && parent != expanding) {
+            parent.setF(parent.forgottenF);
+            leaves.add(parent);
+        }
+    }
+
+    @Override
+    protected void computeStatistics(int successorsSize) {
+        statistics.numExpandedNodes++;
+        statistics.numGeneratedSates += successorsSize;
+        statistics.maxFrontierSize = Math.max(statistics.maxFrontierSize, leaves.size());
+    }
+
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    //Nodes of the search tree kept in memory, leaves and inner nodes
+    public void setMaxNodes(int maxNodes) {
+        if (maxNodes < 2)
+            throw new IllegalArgumentException("The search needs room for at least two nodes.");
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public String toString() {
+        return "SMA* search";
+    }
+
+    private class MemoryNode extends Node {
+
+        private final long id = nextId++;
+        //Smallest f of the children that were dropped, the node's f when they are all gone
+        private double forgottenF = Double.POSITIVE_INFINITY;
+        private int numChildren;
+
+        MemoryNode(State state, MemoryNode parent, double g, double f) {
+            super(state, parent, g, f);
+        }
+    }
+}
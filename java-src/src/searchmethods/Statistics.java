@@ -4,10 +4,33 @@ public class Statistics {
     public int numExpandedNodes;
     public int numGeneratedSates = 1; //due to the initial node
     public int maxFrontierSize;
+    //Searches that expand the nodes layer by layer, 0 for the others
+    public int numLayers;
+    public int maxLayerWidth;
+    //Successors generated in a single layer, what has to be kept in memory to choose the next one
+    public int maxLayerCandidates;
+    //Successors left out of a layer only because they were generated after others with the same f
+    public int numTiesBroken;
+    //Parallel searches, 0 threads for the sequential ones
+    public int numThreads;
+    //Expansions of states that had already been expanded through a more expensive path
+    public int numReExpansions;
+    //Times a thread found a shared structure taken by another one
+    public long numContendedAccesses;
+    //Memory bounded searches: nodes dropped to keep within the budget
+    public int numForgottenNodes;
 
     public void reset() {
         numExpandedNodes = 0;
         numGeneratedSates = 1;
         maxFrontierSize = 0;
+        numLayers = 0;
+        maxLayerWidth = 0;
+        maxLayerCandidates = 0;
+        numTiesBroken = 0;
+        numThreads = 0;
+        numReExpansions = 0;
+        numContendedAccesses = 0;
+        numForgottenNodes = 0;
     }
 }
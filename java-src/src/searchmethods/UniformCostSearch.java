@@ -1,14 +1,25 @@
 package searchmethods;
 
+import agent.Problem;
+import agent.Solution;
 import agent.State;
+import utils.NodeBucketQueue;
 import utils.NodePriorityQueue;
+import utils.PriorityNodeCollection;
 
-public class UniformCostSearch extends GraphSearch<NodePriorityQueue> {
+public class UniformCostSearch extends GraphSearch<PriorityNodeCollection> {
 
     public UniformCostSearch() {
         frontier = new NodePriorityQueue();
     }
 
+    @Override
+    public Solution search(Problem problem) {
+        //With integer costs there are few different values of g, so a bucket queue can be used instead of a heap
+        frontier = problem.hasIntegerCosts() ? new NodeBucketQueue() : new NodePriorityQueue();
+        return super.search(problem);
+    }
+
     // f = g
     @Override
     public void addSuccessorToFrontier(State successor, Node parent) {
@@ -17,8 +28,7 @@ public class UniformCostSearch extends GraphSearch<NodePriorityQueue> {
             if (!explored.contains(successor))
                 frontier.add(new Node(successor, parent, g, g));
         } else if (g < frontier.getNode(successor).getG()) {
-            frontier.removeNode(successor);
-            frontier.add(new Node(successor, parent, g, g));
+            frontier.replaceNode(new Node(successor, parent, g, g));
         }
     }
 
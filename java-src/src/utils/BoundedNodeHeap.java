@@ -0,0 +1,119 @@
+package utils;
+
+import searchmethods.Node;
+
+import java.util.Arrays;
+
+/*
+ * Keeps the best nodes (smallest f) of the ones offered to it, up to a fixed capacity. It is a max
+ * heap whose root is the worst node kept, so an offer costs O(log k) and, once the arrays are
+ * allocated, nothing else is. Between nodes with the same f the one offered first is better, so the
+ * nodes kept depend only on the order of the offers.
+ */
+public class BoundedNodeHeap {
+
+    private final Node[] heap;
+    //Offer number of each node of the heap, breaks ties between nodes with the same f
+    private final long[] orders;
+    private int size;
+    private long numOffers;
+
+    public BoundedNodeHeap(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity must be positive.");
+        heap = new Node[capacity];
+        orders = new long[capacity];
+    }
+
+    //True if a node with this f would be kept, so nodes that wouldn't don't need to be created
+    public boolean accepts(double f) {
+        return size < heap.length || f < heap[0].getF();
+    }
+
+    //Returns false if the node is left out, being worse than all the ones kept
+    public boolean offer(Node node) {
+        long order = numOffers++;
+        if (size < heap.length) {
+            siftUp(size++, node, order);
+            return true;
+        }
+        if (node.getF() >= heap[0].getF())
+            return false;
+        siftDown(0, node, order);
+        return true;
+    }
+
+    //Worst node kept, null if there is none
+    public Node peekWorst() {
+        return size == 0 ? null : heap[0];
+    }
+
+    /*
+     * Moves the nodes to the given array, from the best to the worst, and returns how many there
+     * are. The heap is left empty.
+     */
+    public int removeAllSorted(Node[] target) {
+        int count = size;
+        //Heap sort: each step moves the worst node left to the end of the part still in the heap
+        while (size > 1) {
+            Node worst = heap[0];
+            long worstOrder = orders[0];
+            size--;
+            siftDown(0, heap[size], orders[size]);
+            heap[size] = worst;
+            orders[size] = worstOrder;
+        }
+        System.arraycopy(heap, 0, target, 0, count);
+        size = count;
+        clear();
+        return count;
+    }
+
+    private static boolean isWorse(Node a, long orderA, Node b, long orderB) {
+        return a.getF() > b.getF() || (a.getF() == b.getF() && orderA > orderB);
+    }
+
+    private void siftUp(int i, Node node, long order) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(node, order, heap[parent], orders[parent]))
+                break;
+            heap[i] = heap[parent];
+            orders[i] = orders[parent];
+            i = parent;
+        }
+        heap[i] = node;
+        orders[i] = order;
+    }
+
+    private void siftDown(int i, Node node, long order) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && isWorse(heap[right], orders[right], heap[child], orders[child]))
+                child = right;
+            if (!isWorse(heap[child], orders[child], node, order))
+                break;
+            heap[i] = heap[child];
+            orders[i] = orders[child];
+            i = child;
+        }
+        heap[i] = node;
+        orders[i] = order;
+    }
+
+    public void clear() {
+        Arrays.fill(heap, 0, size, null);
+        size = 0;
+        numOffers = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return heap.length;
+    }
+}
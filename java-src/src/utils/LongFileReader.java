@@ -0,0 +1,70 @@
+package utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/*
+ * Reads, in order, the longs written by LongFileWriter, a buffer at a time. The next long can be
+ * looked at without reading it, which is what merging sorted files needs.
+ */
+public class LongFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(LongFileWriter.BUFFER_SIZE);
+    private boolean hasNext;
+    private long next;
+
+    public LongFileReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.flip();
+        try {
+            advance();
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+    }
+
+    private void advance() throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            buffer.compact();
+            while (buffer.position() < Long.BYTES && channel.read(buffer) >= 0) {
+                //A read may return less than a long, keep reading until there is one or the file ends
+            }
+            buffer.flip();
+        }
+        hasNext = buffer.remaining() >= Long.BYTES;
+        if (hasNext)
+            next = buffer.getLong();
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public long peek() {
+        if (!hasNext)
+            throw new NoSuchElementException();
+        return next;
+    }
+
+    public long next() throws IOException {
+        long value = peek();
+        advance();
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
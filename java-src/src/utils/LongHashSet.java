@@ -0,0 +1,98 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * Set of longs using open addressing with linear probing, so that no object is created per key.
+ * Empty slots hold 0, so the key 0 is kept apart in a flag.
+ */
+public class LongHashSet {
+
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(1024);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.max(2, expectedSize / LOAD_FACTOR) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int hash(long key) {
+        //Finalizer of MurmurHash3, spreads the bits of the key over the lower bits used as index
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    public boolean add(long key) {
+        if (key == 0) {
+            if (containsZero)
+                return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size > resizeThreshold)
+            resize();
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0)
+            return containsZero;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        allocate(oldKeys.length * 2);
+        for (long key : oldKeys) {
+            if (key == 0)
+                continue;
+            int i = hash(key) & mask;
+            while (keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = key;
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        containsZero = false;
+    }
+
+    public int size() {
+        return size;
+    }
+}
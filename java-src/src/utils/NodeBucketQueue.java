@@ -0,0 +1,215 @@
+package utils;
+
+import agent.State;
+import searchmethods.Node;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/*
+ * Frontier for problems where f only takes small integer values: there is one bucket of nodes for
+ * each value of f, so adding and removing a node doesn't need to sift a heap.
+ * Nodes with the same f leave in the order given by the tie breaking: FIFO, LIFO or, with
+ * HIGHEST_G and LOWEST_G, by g (FIFO between nodes with the same g).
+ * Removed or replaced nodes are only dropped from the contents map and are skipped when they reach
+ * the front of their bucket. Nodes with an f that is not a small non-negative integer (for example,
+ * Double.MAX_VALUE) go to an overflow heap.
+ */
+public class NodeBucketQueue extends AbstractQueue<Node> implements PriorityNodeCollection {
+
+    public enum TieBreaking {FIFO, LIFO, HIGHEST_G, LOWEST_G}
+
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    private final TieBreaking tieBreaking;
+    private final HashMap<State, Node> contents;
+    private final ArrayList<Bucket> buckets;
+    private final PriorityQueue<Node> overflow;
+    //No bucket below this one has nodes
+    private int minBucket;
+
+    public NodeBucketQueue() {
+        this(TieBreaking.FIFO);
+    }
+
+    public NodeBucketQueue(TieBreaking tieBreaking) {
+        this.tieBreaking = tieBreaking;
+        contents = new HashMap<>(128);
+        buckets = new ArrayList<>();
+        overflow = new PriorityQueue<>();
+    }
+
+    private static int bucketIndex(Node n) {
+        double f = n.getF();
+        return (f >= 0 && f < MAX_BUCKETS && f == Math.rint(f)) ? (int) f : -1;
+    }
+
+    private boolean isStale(Node n) {
+        return contents.get(n.getState()) != n;
+    }
+
+    @Override
+    public boolean offer(Node n) {
+        contents.put(n.getState(), n);
+        insert(n);
+        return true;
+    }
+
+    private void insert(Node n) {
+        int f = bucketIndex(n);
+        if (f < 0) {
+            overflow.add(n);
+            return;
+        }
+        while (buckets.size() <= f)
+            buckets.add(new Bucket());
+        buckets.get(f).add(n);
+        minBucket = Math.min(minBucket, f);
+    }
+
+    //Moves minBucket to the first bucket with a valid node and returns that bucket, or null
+    private Bucket firstBucket() {
+        while (minBucket < buckets.size()) {
+            Bucket bucket = buckets.get(minBucket);
+            if (bucket.peek() != null)
+                return bucket;
+            minBucket++;
+        }
+        return null;
+    }
+
+    private Node peekOverflow() {
+        while (!overflow.isEmpty() && isStale(overflow.peek()))
+            overflow.poll();
+        return overflow.peek();
+    }
+
+    @Override
+    public Node poll() {
+        Bucket bucket = firstBucket();
+        Node overflowHead = peekOverflow();
+        Node n;
+        if (overflowHead != null && (bucket == null || overflowHead.getF() < minBucket))
+            n = overflow.poll();
+        else if (bucket != null)
+            n = bucket.poll();
+        else
+            return null;
+        contents.remove(n.getState());
+        return n;
+    }
+
+    @Override
+    public Node peek() {
+        Bucket bucket = firstBucket();
+        Node overflowHead = peekOverflow();
+        if (overflowHead != null && (bucket == null || overflowHead.getF() < minBucket))
+            return overflowHead;
+        return bucket == null ? null : bucket.peek();
+    }
+
+    @Override
+    public int size() {
+        return contents.size();
+    }
+
+    @Override
+    public void clear() {
+        contents.clear();
+        buckets.clear();
+        overflow.clear();
+        minBucket = 0;
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return contents.values().iterator();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Node no && !isStale(no);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o))
+            return false;
+        contents.remove(((Node) o).getState());
+        return true;
+    }
+
+    @Override
+    public boolean containsState(State e) {
+        return contents.containsKey(e);
+    }
+
+    @Override
+    public Node getNode(State e) {
+        return contents.get(e);
+    }
+
+    @Override
+    public boolean removeNode(State e) {
+        return contents.remove(e) != null;
+    }
+
+    @Override
+    public void replaceNode(Node n) {
+        offer(n);
+    }
+
+    public TieBreaking getTieBreaking() {
+        return tieBreaking;
+    }
+
+    //Nodes with the same f, split by g when the tie breaking depends on it
+    private final class Bucket {
+        private final ArrayList<ArrayDeque<Node>> byG = new ArrayList<>(1);
+
+        void add(Node n) {
+            int g = 0;
+            if (tieBreaking == TieBreaking.HIGHEST_G || tieBreaking == TieBreaking.LOWEST_G)
+                g = (int) Math.max(0, Math.min(n.getG(), MAX_BUCKETS - 1));
+            while (byG.size() <= g)
+                byG.add(new ArrayDeque<>());
+            byG.get(g).addLast(n);
+        }
+
+        //First valid node of the bucket, the stale ones in front of it are dropped
+        Node peek() {
+            ArrayDeque<Node> nodes = first();
+            if (nodes == null)
+                return null;
+            return tieBreaking == TieBreaking.LIFO ? nodes.peekLast() : nodes.peekFirst();
+        }
+
+        Node poll() {
+            ArrayDeque<Node> nodes = first();
+            if (nodes == null)
+                return null;
+            return tieBreaking == TieBreaking.LIFO ? nodes.pollLast() : nodes.pollFirst();
+        }
+
+        private ArrayDeque<Node> first() {
+            boolean highestFirst = tieBreaking == TieBreaking.HIGHEST_G;
+            for (int i = 0; i < byG.size(); i++) {
+                ArrayDeque<Node> nodes = byG.get(highestFirst ? byG.size() - 1 - i : i);
+                boolean last = tieBreaking == TieBreaking.LIFO;
+                while (!nodes.isEmpty() && isStale(last ? nodes.peekLast() : nodes.peekFirst())) {
+                    if (last)
+                        nodes.pollLast();
+                    else
+                        nodes.pollFirst();
+                }
+                if (!nodes.isEmpty())
+                    return nodes;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package utils;
+
+import agent.State;
+import searchmethods.Node;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Relaxed concurrent priority queue of nodes (a MultiQueue): several heaps, each with its own lock.
+ * A node is added to a random heap and poll takes the best of the tops of two random heaps, so
+ * threads rarely wait for each other. The node returned isn't always the best one, only one of the
+ * best ones, which best first searches can live with if they can reopen states.
+ * A lock that is taken makes the thread try other heaps instead of waiting; those failed attempts
+ * are counted as contention. Nodes with the same f leave the highest g first, as in A*.
+ */
+public class NodeMultiQueue extends AbstractQueue<Node> implements NodeCollection {
+
+    private static final Comparator<Node> ORDER =
+            Comparator.comparingDouble(Node::getF).thenComparing(Comparator.comparingDouble(Node::getG).reversed());
+
+    private final Heap[] heaps;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder numContendedAccesses = new LongAdder();
+
+    private static class Heap {
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<Node> nodes = new PriorityQueue<>(ORDER);
+        //f of the best node, read without the lock to choose between heaps
+        volatile double topF = Double.MAX_VALUE;
+
+        void updateTop() {
+            Node top = nodes.peek();
+            topF = top == null ? Double.MAX_VALUE : top.getF();
+        }
+    }
+
+    //Two heaps per thread keep the chance of two threads wanting the same heap low
+    public NodeMultiQueue(int numThreads) {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("The number of threads must be positive.");
+        heaps = new Heap[2 * numThreads];
+        for (int i = 0; i < heaps.length; i++)
+            heaps[i] = new Heap();
+    }
+
+    @Override
+    public boolean offer(Node n) {
+        //Counted before it can be polled, so that the size is never negative
+        size.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Heap heap = heaps[random.nextInt(heaps.length)];
+            if (heap.lock.tryLock()) {
+                try {
+                    heap.nodes.add(n);
+                    if (n.getF() < heap.topF)
+                        heap.topF = n.getF();
+                } finally {
+                    heap.lock.unlock();
+                }
+                return true;
+            }
+            numContendedAccesses.increment();
+        }
+    }
+
+    //Returns null only if every heap was seen empty
+    @Override
+    public Node poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (size.get() > 0) {
+            Heap first = heaps[random.nextInt(heaps.length)];
+            Heap second = heaps[random.nextInt(heaps.length)];
+            Heap heap = second.topF < first.topF ? second : first;
+            if (heap.topF == Double.MAX_VALUE)
+                return pollAny();
+            Node n = tryPoll(heap);
+            if (n != null)
+                return n;
+        }
+        return null;
+    }
+
+    private Node tryPoll(Heap heap) {
+        if (!heap.lock.tryLock()) {
+            numContendedAccesses.increment();
+            return null;
+        }
+        try {
+            Node n = heap.nodes.poll();
+            heap.updateTop();
+            if (n != null)
+                size.decrementAndGet();
+            return n;
+        } finally {
+            heap.lock.unlock();
+        }
+    }
+
+    //The random heaps were empty, the nodes left may all be in a few heaps
+    private Node pollAny() {
+        for (Heap heap : heaps) {
+            heap.lock.lock();
+            try {
+                Node n = heap.nodes.poll();
+                if (n != null) {
+                    heap.updateTop();
+                    size.decrementAndGet();
+                    return n;
+                }
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    //Best of the tops of the heaps, which may change as soon as it is returned
+    @Override
+    public Node peek() {
+        Node best = null;
+        for (Heap heap : heaps) {
+            heap.lock.lock();
+            try {
+                Node top = heap.nodes.peek();
+                if (top != null && (best == null || ORDER.compare(top, best) < 0))
+                    best = top;
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void clear() {
+        for (Heap heap : heaps) {
+            heap.lock.lock();
+            try {
+                size.addAndGet(-heap.nodes.size());
+                heap.nodes.clear();
+                heap.updateTop();
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+    }
+
+    //Looks in every heap, searches should use a concurrent set of states instead
+    @Override
+    public boolean containsState(State e) {
+        for (Heap heap : heaps) {
+            heap.lock.lock();
+            try {
+                for (Node n : heap.nodes)
+                    if (n.getState().equals(e))
+                        return true;
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return false;
+    }
+
+    //Iterates over a copy of the nodes, in no particular order
+    @Override
+    public Iterator<Node> iterator() {
+        ArrayList<Node> nodes = new ArrayList<>(size());
+        for (Heap heap : heaps) {
+            heap.lock.lock();
+            try {
+                nodes.addAll(heap.nodes);
+            } finally {
+                heap.lock.unlock();
+            }
+        }
+        return nodes.iterator();
+    }
+
+    //Times a thread found the lock of a heap taken and had to try another one
+    public long getNumContendedAccesses() {
+        return numContendedAccesses.sum();
+    }
+}
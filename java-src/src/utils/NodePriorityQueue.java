@@ -3,51 +3,98 @@ package utils;
 import agent.State;
 import searchmethods.Node;
 
+import java.util.AbstractQueue;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-public class NodePriorityQueue extends PriorityQueue<Node> implements NodeCollection {
+/*
+ * Binary heap of nodes ordered by f. Each node knows its position in the heap, so a node can be
+ * removed or have its f changed in O(log n) instead of searching the whole heap for it.
+ * The sift operations are the same as the ones in java.util.PriorityQueue, so nodes with the same f
+ * come out in the same order.
+ */
+public class NodePriorityQueue extends AbstractQueue<Node> implements PriorityNodeCollection {
 
     private final HashMap<State, Node> contents;
+    private Node[] heap;
+    private int size;
 
     public NodePriorityQueue() {
         super();
         contents = new HashMap<State, Node>(128);
+        heap = new Node[128];
     }
 
     @Override
-    public boolean add(Node e) {
+    public boolean offer(Node e) {
+        if (size == heap.length)
+            heap = Arrays.copyOf(heap, heap.length * 2);
         contents.put(e.getState(), e);
-        return super.add(e);
+        siftUp(size++, e);
+        return true;
+    }
+
+    @Override
+    public Node poll() {
+        if (size == 0)
+            return null;
+        Node n = heap[0];
+        removeAt(0);
+        return n;
+    }
+
+    @Override
+    public Node peek() {
+        return size == 0 ? null : heap[0];
+    }
+
+    @Override
+    public int size() {
+        return size;
     }
 
     @Override
     public void clear() {
-        super.clear();
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
         contents.clear();
     }
 
     @Override
-    public boolean remove(Object o) {
-        if (o instanceof Node) {
-            Node no = (Node) o;
-            contents.remove(no.getState());
-        }
-        return super.remove(o);
+    public boolean contains(Object o) {
+        return o instanceof Node no && isInHeap(no);
     }
 
     @Override
-    public Node remove() {
-        Node no = super.remove();
-        contents.remove(no.getState());
-        return no;
+    public boolean remove(Object o) {
+        if (!(o instanceof Node no) || !isInHeap(no))
+            return false;
+        removeAt(no.getHeapIndex());
+        return true;
     }
 
     @Override
-    public Node poll() {
-        Node n = super.poll();
-        contents.remove(n.getState());
-        return n;
+    public Iterator<Node> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Node next() {
+                if (next >= size)
+                    throw new NoSuchElementException();
+                return heap[next++];
+            }
+        };
     }
 
     @Override
@@ -55,11 +102,81 @@ public class NodePriorityQueue extends PriorityQueue<Node> implements NodeCollec
         return contents.containsKey(e);
     }
 
+    @Override
     public Node getNode(State e) {
         return contents.get(e);
     }
 
+    @Override
     public boolean removeNode(State e) {
         return remove(contents.get(e));
     }
+
+    /*
+     * Puts the node in the place of the node with the same state, which must be in the queue,
+     * and moves it up or down according to its f (decrease-key when a cheaper path is found).
+     */
+    @Override
+    public void replaceNode(Node n) {
+        Node old = contents.put(n.getState(), n);
+        int i = old.getHeapIndex();
+        old.setHeapIndex(-1);
+        siftUp(i, n);
+        if (heap[i] == n)
+            siftDown(i, n);
+    }
+
+    private boolean isInHeap(Node n) {
+        int i = n.getHeapIndex();
+        return i >= 0 && i < size && heap[i] == n;
+    }
+
+    private void removeAt(int i) {
+        Node removed = heap[i];
+        contents.remove(removed.getState());
+        removed.setHeapIndex(-1);
+        int s = --size;
+        if (s == i) {
+            heap[i] = null;
+        } else {
+            Node moved = heap[s];
+            heap[s] = null;
+            siftDown(i, moved);
+            if (heap[i] == moved)
+                siftUp(i, moved);
+        }
+    }
+
+    private void set(int i, Node n) {
+        heap[i] = n;
+        n.setHeapIndex(i);
+    }
+
+    private void siftUp(int k, Node x) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            Node e = heap[parent];
+            if (x.compareTo(e) >= 0)
+                break;
+            set(k, e);
+            k = parent;
+        }
+        set(k, x);
+    }
+
+    private void siftDown(int k, Node x) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            Node c = heap[child];
+            int right = child + 1;
+            if (right < size && c.compareTo(heap[right]) > 0)
+                c = heap[child = right];
+            if (x.compareTo(c) <= 0)
+                break;
+            set(k, c);
+            k = child;
+        }
+        set(k, x);
+    }
 }
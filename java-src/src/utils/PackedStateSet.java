@@ -0,0 +1,36 @@
+package utils;
+
+import agent.PackedStateProblem;
+import agent.State;
+
+//Keeps only the packed value of each state, for problems whose states can be packed in a long.
+public class PackedStateSet implements StateSet {
+
+    private final PackedStateProblem problem;
+    private final LongHashSet keys;
+
+    public PackedStateSet(PackedStateProblem problem) {
+        this.problem = problem;
+        keys = new LongHashSet();
+    }
+
+    @Override
+    public boolean add(State state) {
+        return keys.add(problem.packState(state));
+    }
+
+    @Override
+    public boolean contains(State state) {
+        return keys.contains(problem.packState(state));
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+    }
+
+    @Override
+    public int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,98 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * Packed states of the current path of a depth first search, pushed as the search goes down and
+ * popped as it backtracks, so that checking if a state is on the path is a single hash probe instead
+ * of a walk up the path. The positions of the keys of each bucket are chained from the deepest to
+ * the shallowest and, as keys are popped in the reverse order they were pushed, the popped key is
+ * always the head of its chain.
+ */
+public class PathSet {
+
+    private long[] keys;
+    //Position of the previous key of the same bucket, -1 ends the chain
+    private int[] next;
+    //Position of the deepest key of each bucket, -1 if there is none
+    private int[] heads;
+    private int mask;
+    private int size;
+
+    public PathSet() {
+        this(64);
+    }
+
+    public PathSet(int expectedDepth) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedDepth) - 1) << 1;
+        keys = new long[capacity];
+        next = new int[capacity];
+        allocateHeads(capacity * 2);
+    }
+
+    private void allocateHeads(int numBuckets) {
+        heads = new int[numBuckets];
+        Arrays.fill(heads, -1);
+        mask = numBuckets - 1;
+    }
+
+    public void push(long key) {
+        if (size == keys.length)
+            grow();
+        int bucket = LongHashSet.hash(key) & mask;
+        keys[size] = key;
+        next[size] = heads[bucket];
+        heads[bucket] = size;
+        size++;
+    }
+
+    public void pop() {
+        if (size == 0)
+            throw new IllegalStateException("The path is empty.");
+        size--;
+        heads[LongHashSet.hash(keys[size]) & mask] = next[size];
+    }
+
+    //Pops keys until only the first size keys are left
+    public void truncate(int size) {
+        while (this.size > size)
+            pop();
+    }
+
+    //Position of the key in the path (its depth), -1 if it isn't in it
+    public int indexOf(long key) {
+        for (int i = heads[LongHashSet.hash(key) & mask]; i >= 0; i = next[i])
+            if (keys[i] == key)
+                return i;
+        return -1;
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(index);
+        return keys[index];
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        next = Arrays.copyOf(next, capacity);
+        allocateHeads(capacity * 2);
+        int oldSize = size;
+        size = 0;
+        for (int i = 0; i < oldSize; i++)
+            push(keys[i]);
+    }
+
+    public void clear() {
+        truncate(0);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,14 @@
+package utils;
+
+import agent.State;
+import searchmethods.Node;
+
+//Frontier ordered by f, where the node of a state can be found and replaced by a cheaper one.
+public interface PriorityNodeCollection extends NodeCollection {
+
+    Node getNode(State e);
+
+    boolean removeNode(State e);
+
+    void replaceNode(Node n);
+}
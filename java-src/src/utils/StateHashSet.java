@@ -0,0 +1,23 @@
+package utils;
+
+import agent.State;
+
+import java.util.HashSet;
+
+//Keeps the states themselves, works for any problem.
+public class StateHashSet extends HashSet<State> implements StateSet {
+
+    public StateHashSet() {
+        super(128);
+    }
+
+    @Override
+    public boolean add(State state) {
+        return super.add(state);
+    }
+
+    @Override
+    public boolean contains(State state) {
+        return super.contains(state);
+    }
+}
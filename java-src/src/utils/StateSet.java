@@ -0,0 +1,17 @@
+package utils;
+
+import agent.State;
+
+/*
+ * Set of states used by the searches to remember which states were already visited.
+ */
+public interface StateSet {
+
+    boolean add(State state);
+
+    boolean contains(State state);
+
+    void clear();
+
+    int size();
+}
@@ -0,0 +1,79 @@
+package utils;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Set of longs that many threads can use at once: the keys are split by hash among several
+ * LongHashSets, each with its own lock, so threads only wait for each other when they use the same
+ * stripe at the same time. Those waits are counted as contention.
+ */
+public class StripedLongHashSet {
+
+    private final LongHashSet[] stripes;
+    private final ReentrantLock[] locks;
+    private final LongAdder numContendedAccesses = new LongAdder();
+
+    public StripedLongHashSet(int numStripes) {
+        if (numStripes < 1)
+            throw new IllegalArgumentException("The number of stripes must be positive.");
+        stripes = new LongHashSet[numStripes];
+        locks = new ReentrantLock[numStripes];
+        for (int i = 0; i < numStripes; i++) {
+            stripes[i] = new LongHashSet();
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    //Uses the high bits of the hash, the low ones choose the slot inside the stripe
+    private int stripe(long key) {
+        return (int) (((LongHashSet.hash(key) & 0xFFFFFFFFL) * stripes.length) >>> 32);
+    }
+
+    private ReentrantLock lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        if (!lock.tryLock()) {
+            numContendedAccesses.increment();
+            lock.lock();
+        }
+        return lock;
+    }
+
+    public boolean add(long key) {
+        int stripe = stripe(key);
+        ReentrantLock lock = lock(stripe);
+        try {
+            return stripes[stripe].add(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(long key) {
+        int stripe = stripe(key);
+        ReentrantLock lock = lock(stripe);
+        try {
+            return stripes[stripe].contains(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            ReentrantLock lock = lock(i);
+            try {
+                size += stripes[i].size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    //Times a thread had to wait for the lock of a stripe
+    public long getNumContendedAccesses() {
+        return numContendedAccesses.sum();
+    }
+}
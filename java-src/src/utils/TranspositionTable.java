@@ -0,0 +1,103 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * Fixed size table of searched states for iterative deepening searches, keyed by packed state.
+ * Each entry keeps the smallest g at which the state was searched, the bound backed up from its
+ * subtree (the smallest f that was over the threshold below it) and the iteration of the search.
+ * A bound is only reusable in later iterations, or from other paths, if the search of the subtree
+ * didn't depend on the path that led to it (no successor was left out for being on that path).
+ *
+ * It never grows: each state can only be in one of two slots and, when both are taken by other
+ * states, the entry replaced is the one from the oldest iteration or, if both are from the same
+ * iteration, the one deeper in the tree (bigger g), whose subtree is the cheapest to search again.
+ */
+public class TranspositionTable {
+
+    //Iteration 0 marks empty slots
+    private final long[] keys;
+    private final double[] gs;
+    private final double[] bounds;
+    private final boolean[] reusable;
+    private final int[] iterations;
+    private final int mask;
+    private int iteration = 1;
+
+    public TranspositionTable(int capacity) {
+        if (capacity < 2)
+            throw new IllegalArgumentException("The capacity must be at least 2.");
+        capacity = Integer.highestOneBit(capacity - 1) << 1;
+        keys = new long[capacity];
+        gs = new double[capacity];
+        bounds = new double[capacity];
+        reusable = new boolean[capacity];
+        iterations = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public void clear() {
+        Arrays.fill(iterations, 0);
+        iteration = 1;
+    }
+
+    //Entries stored from now on belong to a new iteration, the older ones are kept
+    public void nextIteration() {
+        iteration++;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    //Slot of the state's entry, or -1 if it isn't in the table
+    public int find(long key) {
+        int i = LongHashSet.hash(key) & mask;
+        if (iterations[i] != 0 && keys[i] == key)
+            return i;
+        i ^= 1;
+        if (iterations[i] != 0 && keys[i] == key)
+            return i;
+        return -1;
+    }
+
+    public double getG(int slot) {
+        return gs[slot];
+    }
+
+    public double getBound(int slot) {
+        return bounds[slot];
+    }
+
+    public boolean isReusable(int slot) {
+        return reusable[slot];
+    }
+
+    //True if the entry was stored in the current iteration
+    public boolean isCurrent(int slot) {
+        return iterations[slot] == iteration;
+    }
+
+    public void store(long key, double g, double bound, boolean isReusable) {
+        int i = LongHashSet.hash(key) & mask;
+        int j = i ^ 1;
+        int slot;
+        if (iterations[i] != 0 && keys[i] == key)
+            slot = i;
+        else if (iterations[j] != 0 && keys[j] == key)
+            slot = j;
+        else if (iterations[i] != iterations[j])
+            slot = iterations[i] < iterations[j] ? i : j;
+        else
+            slot = gs[i] >= gs[j] ? i : j;
+        keys[slot] = key;
+        gs[slot] = g;
+        bounds[slot] = bound;
+        reusable[slot] = isReusable;
+        iterations[slot] = iteration;
+    }
+}